@@ -0,0 +1,67 @@
+package interactsh.benchmarks;
+
+import java.awt.Component;
+import java.lang.reflect.Array;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.swing.JPanel;
+import burp.api.montoya.MontoyaApi;
+
+/**
+ * Stands in for Burp, so that the extension can run outside of it. Preferences are kept in
+ * memory, errors are printed, the editors Burp would provide are empty panels, so the tab can be
+ * built headless, and every other call returns a default.
+ */
+public final class BurpStub {
+	private static final Map<String, Object> PREFERENCES = new ConcurrentHashMap<>();
+
+	private BurpStub() {
+	}
+
+	// Sets a preference, such as the server, before the code under test reads it
+	public static void setPreference(String key, String value) {
+		PREFERENCES.put(key, value);
+	}
+
+	public static synchronized void install() {
+		if (burp.BurpExtender.api == null) {
+			burp.BurpExtender.api = stub(MontoyaApi.class);
+			burp.gui.Config.generateConfig();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T stub(Class<T> type) {
+		return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+				(proxy, method, args) -> {
+					String name = method.getName();
+					Class<?> returnType = method.getReturnType();
+					if (name.equals("logToError") && args != null) {
+						System.err.println(args[0]);
+						return null;
+					}
+					if (name.startsWith("set") && args != null && args.length == 2) {
+						PREFERENCES.put((String) args[0], args[1]);
+						return null;
+					}
+					if (name.startsWith("get") && args != null && args.length == 1
+							&& args[0] instanceof String key) {
+						Object value = PREFERENCES.get(key);
+						if (value != null || !returnType.isPrimitive()) {
+							return value;
+						}
+					}
+					if (returnType == Component.class) {
+						return new JPanel();
+					}
+					if (returnType.isInterface()) {
+						return stub(returnType);
+					}
+					if (returnType.isPrimitive() && returnType != void.class) {
+						return Array.get(Array.newInstance(returnType, 1), 0);
+					}
+					return null;
+				});
+	}
+}
@@ -0,0 +1,64 @@
+package interactsh.benchmarks;
+
+import interactsh.EventDecryptor;
+import interactsh.InteractshEntry;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.spec.SecretKeySpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Events per second the client decrypts and parses, per protocol: the AES decryption of an event
+ * from a poll response, parsing it into an {@link InteractshEntry} including its search words,
+ * and both together as a poll does them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventBenchmark {
+	@Param({"dns", "http", "smtp", "ldap", "smb", "ftp"})
+	public String protocol;
+
+	private SecretKeySpec key;
+	private String encrypted;
+	private byte[] decrypted;
+
+	@Setup
+	public void setup() throws Exception {
+		String event = Events.sample(protocol, "c4jup534f3acspvifdr0abcdefghijklm",
+				Instant.parse("2021-08-26T19:35:24.221293174Z"));
+		key = Events.newAesKey();
+		encrypted = Events.encrypt(event, key);
+		decrypted = event.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public byte[] decryptData() throws Exception {
+		return EventDecryptor.decryptToBytes(encrypted, key);
+	}
+
+	@Benchmark
+	public InteractshEntry parseEntry() {
+		return new InteractshEntry(decrypted);
+	}
+
+	@Benchmark
+	public InteractshEntry decryptAndParse() throws Exception {
+		return new InteractshEntry(EventDecryptor.decryptToBytes(encrypted, key));
+	}
+}
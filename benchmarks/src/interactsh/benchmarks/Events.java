@@ -0,0 +1,150 @@
+package interactsh.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.spec.MGF1ParameterSpec;
+import java.time.Instant;
+import java.util.Base64;
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.OAEPParameterSpec;
+import javax.crypto.spec.PSource;
+import javax.crypto.spec.SecretKeySpec;
+import org.json.JSONObject;
+
+/**
+ * Interactions as the server sends them, modelled on the samples in the header of
+ * {@link interactsh.InteractshEntry}, and the server side of their encryption.
+ */
+public final class Events {
+	public static final String[] PROTOCOLS = {"dns", "http", "smtp", "ldap", "smb", "ftp"};
+
+	private static final SecureRandom RANDOM = new SecureRandom();
+
+	private Events() {
+	}
+
+	// A decrypted event of the protocol for a 33 character unique ID
+	public static String sample(String protocol, String uniqueId, Instant timestamp) {
+		String domain = uniqueId + ".oast.pro";
+		JSONObject event = new JSONObject();
+		event.put("protocol", protocol);
+		event.put("unique-id", uniqueId);
+		event.put("full-id", uniqueId);
+		event.put("timestamp", timestamp.toString());
+		switch (protocol) {
+			case "dns":
+				event.put("q-type", "A");
+				event.put("raw-request", ";; opcode: QUERY, status: NOERROR, id: 52297\n"
+						+ ";; flags: cd; QUERY: 1, ANSWER: 0, AUTHORITY: 0, ADDITIONAL: 0\n\n"
+						+ ";; QUESTION SECTION:\n;" + domain + ".\tIN\t A\n");
+				event.put("raw-response", ";; opcode: QUERY, status: NOERROR, id: 52297\n"
+						+ ";; flags: qr aa cd; QUERY: 1, ANSWER: 1, AUTHORITY: 2, ADDITIONAL: 2\n\n"
+						+ ";; QUESTION SECTION:\n;" + domain + ".\tIN\t A\n\n"
+						+ ";; ANSWER SECTION:\n" + domain + ".\t3600\tIN\tA\t46.101.25.250\n\n"
+						+ ";; AUTHORITY SECTION:\n" + domain + ".\t3600\tIN\tNS\tns1.oast.pro.\n"
+						+ domain + ".\t3600\tIN\tNS\tns2.oast.pro.\n\n"
+						+ ";; ADDITIONAL SECTION:\nns1.oast.pro.\t3600\tIN\tA\t46.101.25.250\n"
+						+ "ns2.oast.pro.\t3600\tIN\tA\t46.101.25.250\n");
+				event.put("remote-address", "172.253.196.66");
+				break;
+			case "http":
+				event.put("raw-request", "GET /foobar123?id=1337 HTTP/1.1\r\nHost: " + domain
+						+ "\r\nAccept: */*\r\nAccept-Encoding: gzip, deflate\r\n"
+						+ "Connection: close\r\n"
+						+ "User-Agent: Mozilla/5.0 (Windows NT 10.0; Win64; x64)"
+						+ " AppleWebKit/537.36 (KHTML, like Gecko)"
+						+ " Chrome/126.0 Safari/537.36\r\n"
+						+ "X-Forwarded-For: 10.12.0.7\r\n\r\n");
+				event.put("raw-response", "HTTP/1.1 200 OK\r\nConnection: close\r\n"
+						+ "Content-Type: text/html; charset=utf-8\r\nServer: oast.pro\r\n\r\n"
+						+ "<html><head></head><body>"
+						+ new StringBuilder(uniqueId).reverse() + "</body></html>");
+				event.put("remote-address", "203.0.113.18");
+				break;
+			case "smtp":
+				event.put("raw-request", "Received: from mail.example.net (mail.example.net."
+						+ " [167.86.101.24])\r\n by oast.pro. (interactsh) with SMTP\r\n"
+						+ " for <foobar@"
+						+ domain + ">; Sat, 28 Aug 2021 19:19:09 +0000 (UTC)\r\n"
+						+ "DKIM-Signature: v=1; a=rsa-sha256; c=relaxed/simple;\r\n"
+						+ "\td=mail.example.net; s=mail; t=1630178349;\r\n"
+						+ "\tbh=lGmaGoj8Xo5ZgiHMqYPGvoKVjIfZP2peFYgc3GXX3J8=;\r\n"
+						+ "\tb=NYlC8/IVvPiH+HJQnCG5W+9O6/VNukJU++1MK6jCkhBaqeYO"
+						+ "a4RC1lmpqjHQ14iWr\r\n"
+						+ "Date: Sat, 28 Aug 2021 19:19:09 +0000\r\nTo: foobar@" + domain + "\r\n"
+						+ "From: Sender <noreply@example.net>\r\nSubject: Test\r\n"
+						+ "MIME-Version: 1.0\r\nContent-Type: multipart/alternative;\r\n"
+						+ " boundary=\"b1_EqDzWEjs9wsJui8L4dcucWKaDQWeApjhHmbfkHMab0\"\r\n\r\n"
+						+ "--b1_EqDzWEjs9wsJui8L4dcucWKaDQWeApjhHmbfkHMab0\r\n"
+						+ "Content-Type: text/plain; charset=us-ascii\r\n\r\nHello World\r\n\r\n"
+						+ "--b1_EqDzWEjs9wsJui8L4dcucWKaDQWeApjhHmbfkHMab0\r\n"
+						+ "Content-Type: text/html; charset=us-ascii\r\n\r\n"
+						+ "<p><span style=\"color:#c0392b\">Hello World</span></p>\r\n\r\n"
+						+ "--b1_EqDzWEjs9wsJui8L4dcucWKaDQWeApjhHmbfkHMab0--\r\n\r\n");
+				event.put("smtp-from", "noreply@example.net");
+				event.put("remote-address", "167.86.101.24");
+				break;
+			case "ldap":
+				event.put("raw-request", "Type=Search\nBaseDn=" + uniqueId
+						+ "\nFilter=(objectClass=*)\nAttributes=[javaClassName javaCodeBase"
+						+ " javaSerializedData objectClass]\nScope=baseObject\n"
+						+ "DerefAliases=neverDerefAliases\nSizeLimit=0\nTimeLimit=0\n"
+						+ "TypesOnly=false\n");
+				event.put("raw-response", "");
+				event.put("remote-address", "198.51.100.4");
+				break;
+			case "smb":
+				event.put("raw-request", "[*] Incoming connection (198.51.100.9,50712)\n"
+						+ "[*] AUTHENTICATE_MESSAGE (WORKGROUP\\svc-backup,FILESRV01)\n"
+						+ "[*] User FILESRV01\\svc-backup authenticated successfully\n"
+						+ "[*] svc-backup::WORKGROUP:aaaaaaaaaaaaaaaa:"
+						+ "3c5d1b9a4f0e8c7d6b2a1f0e9d8c7b6a:0101000000000000004c1a2b3c4dd701"
+						+ "a1b2c3d4e5f60718000000000200080053004d0042\n"
+						+ "[*] Connecting Share(1:IPC$)\n"
+						+ "[*] Connecting Share(2:" + uniqueId + ")\n"
+						+ "[*] Disconnecting Share(1:IPC$)\n[*] Closing down connection"
+						+ " (198.51.100.9,50712)\n");
+				event.put("remote-address", "198.51.100.9");
+				break;
+			case "ftp":
+				event.put("raw-request", "USER anonymous\r\nPASS " + uniqueId + "@oast.pro\r\n"
+						+ "SYST\r\nFEAT\r\nPWD\r\nTYPE I\r\nPASV\r\nLIST\r\nQUIT\r\n");
+				event.put("remote-address", "192.0.2.44");
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown protocol " + protocol);
+		}
+		return event.toString();
+	}
+
+	public static SecretKeySpec newAesKey() {
+		byte[] key = new byte[32];
+		RANDOM.nextBytes(key);
+		return new SecretKeySpec(key, "AES");
+	}
+
+	// What the server puts in the data array of a poll response
+	public static String encrypt(String event, SecretKeySpec key) throws GeneralSecurityException {
+		byte[] iv = new byte[16];
+		RANDOM.nextBytes(iv);
+		Cipher cipher = Cipher.getInstance("AES/CFB/NoPadding");
+		cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
+		byte[] cipherText = cipher.doFinal((event + "\n").getBytes(StandardCharsets.UTF_8));
+		byte[] message = new byte[iv.length + cipherText.length];
+		System.arraycopy(iv, 0, message, 0, iv.length);
+		System.arraycopy(cipherText, 0, message, iv.length, cipherText.length);
+		return Base64.getEncoder().encodeToString(message);
+	}
+
+	// What the server puts in the aes_key field of a poll response
+	public static String wrapKey(SecretKeySpec key, PublicKey publicKey)
+			throws GeneralSecurityException {
+		Cipher cipher = Cipher.getInstance("RSA/ECB/OAEPPadding");
+		cipher.init(Cipher.ENCRYPT_MODE, publicKey, new OAEPParameterSpec("SHA-256", "MGF1",
+				new MGF1ParameterSpec("SHA-256"), PSource.PSpecified.DEFAULT));
+		return Base64.getEncoder().encodeToString(cipher.doFinal(key.getEncoded()));
+	}
+}
@@ -0,0 +1,355 @@
+package interactsh.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.crypto.spec.SecretKeySpec;
+import org.json.JSONObject;
+import interactsh.PayloadRegistry;
+
+/**
+ * A local stand-in for an Interactsh server, for load and latency tests without a network. It
+ * implements /register, /poll and /deregister with the same RSA-OAEP wrapped AES-CFB envelope as
+ * the real server, and lays poll responses out the same way, with the events before the key.
+ *
+ * Every registered session receives synthetic interactions at the configured rate, in the
+ * configured mix of protocols. They are generated when the session polls, with timestamps spread
+ * over the time since its last poll, and streamed out one by one, so a huge batch does not have to
+ * fit in memory. Polls can also be delayed, fail at random or find their session forgotten, as
+ * after a restart of the server.
+ *
+ * Run {@link #main(String[])} to start one for a Burp instance, then set the server to 127.0.0.1,
+ * the port it prints and TLS off.
+ */
+public class FakeInteractshServer implements AutoCloseable {
+	// Caps what a session accumulates between polls, like the eviction of the real server
+	private static final int MAX_PENDING = 1_000_000;
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+	private final AtomicLong eventsServed = new AtomicLong();
+	private final AtomicLong pollsServed = new AtomicLong();
+
+	private volatile double ratePerSecond;
+	private volatile String[] mix = Events.PROTOCOLS;
+	private volatile long delayMillis;
+	private volatile double errorRate;
+
+	public FakeInteractshServer(int port) throws IOException {
+		server = HttpServer.create(
+				new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		executor = Executors.newFixedThreadPool(8, r -> {
+			Thread thread = new Thread(r, "fake-interactsh-server");
+			thread.setDaemon(true);
+			return thread;
+		});
+		server.setExecutor(executor);
+		server.createContext("/register", this::register);
+		server.createContext("/poll", this::poll);
+		server.createContext("/deregister", this::deregister);
+		server.start();
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	// Interactions per second for each session
+	public void setRate(double ratePerSecond) {
+		this.ratePerSecond = ratePerSecond;
+	}
+
+	// The share of each protocol, such as dns=6, http=3, smtp=1
+	public void setMix(Map<String, Integer> weights) {
+		List<String> protocols = new ArrayList<>();
+		weights.forEach((protocol, weight) -> {
+			if (!Arrays.asList(Events.PROTOCOLS).contains(protocol)) {
+				throw new IllegalArgumentException("Unknown protocol " + protocol);
+			}
+			for (int i = 0; i < weight; i++) {
+				protocols.add(protocol);
+			}
+		});
+		if (protocols.isEmpty()) {
+			throw new IllegalArgumentException("The mix needs at least one protocol");
+		}
+		this.mix = protocols.toArray(String[]::new);
+	}
+
+	// How long every poll waits before it is answered
+	public void setDelayMillis(long delayMillis) {
+		this.delayMillis = delayMillis;
+	}
+
+	// The fraction of polls answered with a 500 error
+	public void setErrorRate(double errorRate) {
+		this.errorRate = errorRate;
+	}
+
+	// Queues a batch for the next poll of every session, on top of the steady rate
+	public void inject(int count) {
+		for (Session session : sessions.values()) {
+			session.inject(count);
+		}
+	}
+
+	// Drops every session, so their next poll fails with 400 as if the server had restarted
+	public void forgetSessions() {
+		sessions.clear();
+	}
+
+	public int getSessionCount() {
+		return sessions.size();
+	}
+
+	public long getEventsServed() {
+		return eventsServed.get();
+	}
+
+	public long getPollsServed() {
+		return pollsServed.get();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	private void register(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			try {
+				JSONObject request = readJson(exchange);
+				Session session = new Session(request.getString("secret-key"),
+						parsePublicKey(request.getString("public-key")));
+				sessions.put(request.getString("correlation-id"), session);
+			} catch (GeneralSecurityException | RuntimeException ex) {
+				respond(exchange, 400, "{\"error\":\"could not register\"}");
+				return;
+			}
+			respond(exchange, 200, "{\"message\":\"registration successful\"}");
+		}
+	}
+
+	private void deregister(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			try {
+				sessions.remove(readJson(exchange).getString("correlation-id"));
+			} catch (RuntimeException ex) {
+				respond(exchange, 400, "{\"error\":\"could not deregister\"}");
+				return;
+			}
+			respond(exchange, 200, "{\"message\":\"deregistration successful\"}");
+		}
+	}
+
+	private void poll(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			pollsServed.incrementAndGet();
+			if (delayMillis > 0) {
+				try {
+					Thread.sleep(delayMillis);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+			if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+				respond(exchange, 500, "{\"error\":\"simulated failure\"}");
+				return;
+			}
+			Map<String, String> query = parseQuery(exchange.getRequestURI());
+			String correlationId = query.get("id");
+			Session session = correlationId == null ? null : sessions.get(correlationId);
+			if (session == null) {
+				respond(exchange, 400, "{\"error\":\"could not get interactions: could not get"
+						+ " correlation-id from cache\"}");
+				return;
+			}
+			if (!session.secretKey.equals(query.get("secret"))) {
+				respond(exchange, 401, "{\"error\":\"invalid secret key\"}");
+				return;
+			}
+			session.writePoll(exchange, correlationId);
+		}
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body)
+			throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		exchange.getResponseBody().write(bytes);
+	}
+
+	private static JSONObject readJson(HttpExchange exchange) throws IOException {
+		return new JSONObject(
+				new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+	}
+
+	private static Map<String, String> parseQuery(URI uri) {
+		Map<String, String> query = new LinkedHashMap<>();
+		if (uri.getRawQuery() != null) {
+			for (String pair : uri.getRawQuery().split("&")) {
+				int equals = pair.indexOf('=');
+				if (equals > 0) {
+					query.put(pair.substring(0, equals), pair.substring(equals + 1));
+				}
+			}
+		}
+		return query;
+	}
+
+	// The client sends its public key as a Base64 encoded PEM block
+	private static PublicKey parsePublicKey(String encoded) throws GeneralSecurityException {
+		String pem = new String(Base64.getDecoder().decode(encoded), StandardCharsets.UTF_8);
+		String body = pem.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "");
+		return KeyFactory.getInstance("RSA")
+				.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(body)));
+	}
+
+	private class Session {
+		private final String secretKey;
+		private final SecretKeySpec aesKey = Events.newAesKey();
+		private final String wrappedKey;
+		private long lastPollNanos = System.nanoTime();
+		private Instant lastPoll = Instant.now();
+		private double carry;
+		private int injected;
+
+		Session(String secretKey, PublicKey publicKey) throws GeneralSecurityException {
+			this.secretKey = secretKey;
+			this.wrappedKey = Events.wrapKey(aesKey, publicKey);
+		}
+
+		synchronized void inject(int count) {
+			injected = Math.min(MAX_PENDING, injected + count);
+		}
+
+		void writePoll(HttpExchange exchange, String correlationId) throws IOException {
+			int count;
+			Instant from;
+			Instant to = Instant.now();
+			synchronized (this) {
+				long now = System.nanoTime();
+				double due = carry + ratePerSecond * (now - lastPollNanos) / 1e9;
+				count = (int) Math.min(MAX_PENDING, due + injected);
+				carry = due - Math.floor(due);
+				injected = 0;
+				lastPollNanos = now;
+				from = lastPoll;
+				lastPoll = to;
+			}
+
+			exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+			exchange.sendResponseHeaders(200, 0);
+			OutputStream body = exchange.getResponseBody();
+			Writer out = new OutputStreamWriter(body, StandardCharsets.UTF_8);
+			String[] protocols = mix;
+			long span = Math.max(1, to.toEpochMilli() - from.toEpochMilli());
+			out.write("{\"data\":[");
+			try {
+				for (int i = 0; i < count; i++) {
+					String protocol =
+							protocols[ThreadLocalRandom.current().nextInt(protocols.length)];
+					Instant timestamp = from.plusMillis(span * (i + 1) / count);
+					String event = Events.sample(protocol,
+							correlationId + PayloadRegistry.randomNonce(), timestamp);
+					if (i > 0) {
+						out.write(',');
+					}
+					out.write('"');
+					out.write(Events.encrypt(event, aesKey));
+					out.write('"');
+					eventsServed.incrementAndGet();
+				}
+			} catch (GeneralSecurityException e) {
+				throw new IOException(e);
+			}
+			out.write("],\"extra\":null,\"aes_key\":\"");
+			out.write(wrappedKey);
+			out.write("\",\"tld_data\":null}");
+			out.flush();
+		}
+	}
+
+	/**
+	 * Starts a server until the process is stopped. Options: --port (default 8080), --rate in
+	 * interactions per second per session, --mix such as dns=6,http=3,smtp=1, --delay-ms,
+	 * --error-rate between 0 and 1, and --burst-size with --burst-every-seconds.
+	 */
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = parseOptions(args);
+		FakeInteractshServer server =
+				new FakeInteractshServer(Integer.parseInt(options.getOrDefault("port", "8080")));
+		server.setRate(Double.parseDouble(options.getOrDefault("rate", "10")));
+		if (options.containsKey("mix")) {
+			server.setMix(parseMix(options.get("mix")));
+		}
+		server.setDelayMillis(Long.parseLong(options.getOrDefault("delay-ms", "0")));
+		server.setErrorRate(Double.parseDouble(options.getOrDefault("error-rate", "0")));
+		int burstSize = Integer.parseInt(options.getOrDefault("burst-size", "0"));
+		long burstEvery = Long.parseLong(options.getOrDefault("burst-every-seconds", "60"));
+		System.out.println("Fake Interactsh server listening on 127.0.0.1:" + server.getPort());
+
+		long lastServed = 0;
+		for (long second = 1; ; second++) {
+			Thread.sleep(1000);
+			if (burstSize > 0 && second % burstEvery == 0) {
+				server.inject(burstSize);
+			}
+			long served = server.getEventsServed();
+			if (served != lastServed) {
+				System.out.println(server.getSessionCount() + " sessions, " + served
+						+ " interactions served, " + server.getPollsServed() + " polls");
+				lastServed = served;
+			}
+		}
+	}
+
+	static Map<String, String> parseOptions(String[] args) {
+		Map<String, String> options = new LinkedHashMap<>();
+		for (int i = 0; i < args.length; i++) {
+			if (!args[i].startsWith("--") || i + 1 >= args.length) {
+				throw new IllegalArgumentException("Expected --option value, got " + args[i]);
+			}
+			options.put(args[i].substring(2), args[++i]);
+		}
+		return options;
+	}
+
+	static Map<String, Integer> parseMix(String mix) {
+		Map<String, Integer> weights = new LinkedHashMap<>();
+		for (String part : mix.split(",")) {
+			String[] protocolWeight = part.split("=");
+			weights.put(protocolWeight[0].trim(),
+					protocolWeight.length > 1 ? Integer.parseInt(protocolWeight[1].trim()) : 1);
+		}
+		return weights;
+	}
+}
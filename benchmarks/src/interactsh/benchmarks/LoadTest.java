@@ -0,0 +1,103 @@
+package interactsh.benchmarks;
+
+import burp.BurpExtender;
+import burp.gui.InteractshTab;
+import burp.listeners.PollScheduler;
+import burp.listeners.SessionPool;
+import interactsh.PayloadRegistry;
+import interactsh.metrics.Histogram;
+import interactsh.metrics.Metrics;
+import interactsh.transport.Transports;
+
+import java.util.Map;
+import javax.swing.SwingUtilities;
+
+/**
+ * Drives the extension end to end against a {@link FakeInteractshServer}: the real listener
+ * registers a session and polls it, and the headless tab takes the interactions in, so the
+ * metrics show the throughput and the latency from the server to the table.
+ *
+ * Takes the options of the fake server, plus --seconds to run for (default 30) and --poll-seconds
+ * (default 1). Prints progress every second and the metrics at the end.
+ */
+public final class LoadTest {
+	private static final long DRAIN_MILLIS = 10_000;
+
+	private LoadTest() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		System.setProperty("java.awt.headless", "true");
+		Map<String, String> options = FakeInteractshServer.parseOptions(args);
+		int seconds = Integer.parseInt(options.getOrDefault("seconds", "30"));
+		int burstSize = Integer.parseInt(options.getOrDefault("burst-size", "0"));
+		long burstEvery = Long.parseLong(options.getOrDefault("burst-every-seconds", "10"));
+
+		try (FakeInteractshServer server = new FakeInteractshServer(0)) {
+			server.setRate(Double.parseDouble(options.getOrDefault("rate", "1000")));
+			if (options.containsKey("mix")) {
+				server.setMix(FakeInteractshServer.parseMix(options.get("mix")));
+			}
+			server.setDelayMillis(Long.parseLong(options.getOrDefault("delay-ms", "0")));
+			server.setErrorRate(Double.parseDouble(options.getOrDefault("error-rate", "0")));
+
+			BurpStub.setPreference("interactsh-server", "127.0.0.1");
+			BurpStub.setPreference("interactsh-port", Integer.toString(server.getPort()));
+			BurpStub.setPreference("interactsh-uses-tls", "false");
+			BurpStub.setPreference("interactsh-transport", Transports.KEEP_ALIVE);
+			BurpStub.setPreference("interactsh-poll-time",
+					options.getOrDefault("poll-seconds", "1"));
+			BurpStub.setPreference("interactsh-persist-log", "false");
+			BurpStub.install();
+			BurpExtender.scheduler = new PollScheduler();
+			BurpExtender.sessionPool = new SessionPool();
+			BurpExtender.payloads = new PayloadRegistry(PayloadRegistry.DEFAULT_TTL_MILLIS, null);
+			SwingUtilities.invokeAndWait(
+					() -> BurpExtender.tab = new InteractshTab(BurpExtender.api));
+			while (BurpExtender.scheduler.getSessionCount() == 0) {
+				Thread.sleep(50);
+			}
+			Metrics.reset();
+			long servedBefore = server.getEventsServed();
+
+			for (int second = 1; second <= seconds; second++) {
+				Thread.sleep(1000);
+				if (burstSize > 0 && second % burstEvery == 0) {
+					server.inject(burstSize);
+				}
+				System.out.printf("%3d s: %d served, %d in the table%n", second,
+						server.getEventsServed() - servedBefore, Metrics.TABLE_ROWS.sum());
+			}
+
+			server.setRate(0);
+			long deadline = System.currentTimeMillis() + DRAIN_MILLIS;
+			while (Metrics.TABLE_ROWS.sum() < server.getEventsServed() - servedBefore
+					&& System.currentTimeMillis() < deadline) {
+				Thread.sleep(100);
+			}
+			long served = server.getEventsServed() - servedBefore;
+			long rows = Metrics.TABLE_ROWS.sum();
+			System.out.printf("%nServed %d interactions, %d reached the table (%.1f/s)%n", served,
+					rows, rows / (double) seconds);
+			System.out.printf("%-22s %10s %10s %10s %10s%n", "Histogram", "Count", "p50", "p99",
+					"Max");
+			for (Histogram histogram : Metrics.getHistograms()) {
+				System.out.printf("%-22s %10d %10s %10s %10s%n", histogram.getName(),
+						histogram.getCount(), format(histogram, histogram.getPercentile(0.5)),
+						format(histogram, histogram.getPercentile(0.99)),
+						format(histogram, histogram.getMax()));
+			}
+
+			SwingUtilities.invokeAndWait(() -> BurpExtender.tab.cleanup());
+			BurpExtender.scheduler.shutdown();
+			BurpExtender.sessionPool.shutdown();
+			Transports.closeAll();
+		}
+		System.exit(0);
+	}
+
+	private static String format(Histogram histogram, long value) {
+		return histogram.getUnit() == Histogram.Unit.COUNT ? Long.toString(value)
+				: String.format("%.2f ms", value / 1e6);
+	}
+}
@@ -0,0 +1,102 @@
+package interactsh.benchmarks;
+
+import interactsh.CorrelationIdMatcher;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Requests per second the outbound payload tracker can scan, as the work it does per request:
+ * copying the request bytes out of Burp and running them through the matcher. The score is in
+ * requests per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OutboundScanBenchmark {
+	private static final CorrelationIdMatcher.MatchConsumer IGNORE = (id, end) -> {
+	};
+
+	@Param({"1", "16", "256"})
+	public int sessions;
+
+	@Param({"512", "4096", "65536"})
+	public int requestSize;
+
+	private CorrelationIdMatcher matcher;
+	private byte[] plainRequest;
+	private byte[] payloadRequest;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		List<String> ids = new ArrayList<>();
+		for (int i = 0; i < sessions; i++) {
+			ids.add(randomId(random));
+		}
+		matcher = CorrelationIdMatcher.build(ids);
+		plainRequest = request(random, null);
+		payloadRequest = request(random, ids.get(0) + "abcdefghijklm.oast.pro");
+	}
+
+	@Benchmark
+	public int scanRequestWithoutPayload() {
+		return matcher.find(Arrays.copyOf(plainRequest, plainRequest.length), IGNORE);
+	}
+
+	@Benchmark
+	public int scanRequestWithPayload() {
+		return matcher.find(Arrays.copyOf(payloadRequest, payloadRequest.length), IGNORE);
+	}
+
+	// Correlation IDs are 20 characters of 0-9 and a-v
+	private static String randomId(Random random) {
+		String alphabet = "0123456789abcdefghijklmnopqrstuv";
+		StringBuilder id = new StringBuilder();
+		for (int i = 0; i < 20; i++) {
+			id.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+		return id.toString();
+	}
+
+	// A form POST padded with alphanumeric parameters, the worst case for the matcher
+	private byte[] request(Random random, String payload) {
+		StringBuilder body = new StringBuilder();
+		int parameter = 0;
+		while (body.length() < requestSize) {
+			if (parameter > 0) {
+				body.append('&');
+			}
+			body.append("param").append(parameter++).append('=');
+			if (payload != null && parameter == 4) {
+				body.append(payload);
+			} else {
+				body.append(randomId(random));
+			}
+		}
+		String request = "POST /api/v1/items HTTP/1.1\r\n"
+				+ "Host: target.example.com\r\n"
+				+ "User-Agent: Mozilla/5.0 (X11; Linux x86_64) Gecko/20100101 Firefox/128.0\r\n"
+				+ "Content-Type: application/x-www-form-urlencoded\r\n"
+				+ "Content-Length: " + body.length() + "\r\n\r\n" + body;
+		return request.getBytes(StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,87 @@
+package interactsh.benchmarks;
+
+import interactsh.PayloadRegistry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Payloads per second the registry records as the outbound payload tracker sees them in requests,
+ * on one thread and on eight, like Intruder or the scanner sending in parallel. With a file, this
+ * is the time the request threads spend, not the time it takes to get the payloads to disk.
+ * Should the store thread fall behind by a full queue, the rest are kept in memory only, so the
+ * score is the same however slow the disk is.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PayloadRegistryBenchmark {
+	private static final PayloadRegistry.Origin ORIGIN = new PayloadRegistry.Origin("Intruder",
+			"https://target.example.com/api/v1/items?id=1", "id", 0);
+
+	@Param({"memory", "file"})
+	public String store;
+
+	private Path directory;
+	private PayloadRegistry registry;
+
+	@Setup(Level.Trial)
+	public void createDirectory() throws IOException {
+		BurpStub.install();
+		directory = Files.createTempDirectory("interactsh-payloads");
+	}
+
+	@Setup(Level.Iteration)
+	public void createRegistry() throws IOException {
+		Path path = directory.resolve("payloads.seg");
+		Files.deleteIfExists(path);
+		registry = new PayloadRegistry(PayloadRegistry.DEFAULT_TTL_MILLIS,
+				store.equals("file") ? path : null);
+	}
+
+	@Benchmark
+	public boolean register() {
+		return registry.register(PayloadRegistry.randomNonce(), withTime());
+	}
+
+	@Benchmark
+	@Threads(8)
+	public boolean registerFromEightThreads() {
+		return registry.register(PayloadRegistry.randomNonce(), withTime());
+	}
+
+	@TearDown(Level.Iteration)
+	public void closeRegistry() throws IOException {
+		registry.close();
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteDirectory() throws IOException {
+		Files.deleteIfExists(directory.resolve("payloads.seg"));
+		Files.deleteIfExists(directory);
+	}
+
+	private static PayloadRegistry.Origin withTime() {
+		return new PayloadRegistry.Origin(ORIGIN.tool(), ORIGIN.target(), ORIGIN.parameter(),
+				System.currentTimeMillis());
+	}
+}
@@ -0,0 +1,62 @@
+package interactsh.benchmarks;
+
+import interactsh.InteractshClient;
+import interactsh.PayloadRegistry;
+
+import java.security.KeyPair;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Operations per second of the per-session work: unwrapping the AES key of a poll response with
+ * the session's RSA key, which only happens when the server changes the key, and building the
+ * domain of a new payload, with and without a nonce tracked in the payload registry.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SessionBenchmark {
+	private KeyPair keyPair;
+	private String wrappedKey;
+	private InteractshClient client;
+	private PayloadRegistry payloads;
+	private PayloadRegistry.Origin origin;
+
+	@Setup
+	public void setup() throws Exception {
+		BurpStub.install();
+		keyPair = InteractshClient.generateKeys();
+		wrappedKey = Events.wrapKey(Events.newAesKey(), keyPair.getPublic());
+		client = new InteractshClient(keyPair);
+		payloads = new PayloadRegistry(PayloadRegistry.DEFAULT_TTL_MILLIS, null);
+		origin = new PayloadRegistry.Origin("Repeater", "https://target.example.com/api/items",
+				"url", System.currentTimeMillis());
+	}
+
+	@Benchmark
+	public byte[] decryptAesKey() throws Exception {
+		return InteractshClient.decryptAesKey(wrappedKey, keyPair.getPrivate());
+	}
+
+	@Benchmark
+	public String getInteractDomain() {
+		return client.getInteractDomain();
+	}
+
+	@Benchmark
+	public String getInteractDomainWithTrackedNonce() {
+		return client.getInteractDomain(payloads.mint(origin));
+	}
+}
@@ -0,0 +1,106 @@
+package interactsh.benchmarks;
+
+import burp.gui.LogRowFilter;
+import burp.gui.LogTableModel;
+import interactsh.InteractshEntry;
+import interactsh.PayloadRegistry;
+import interactsh.store.InteractionLog;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JTable;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.table.TableModel;
+import javax.swing.table.TableRowSorter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Batches per second the interaction table takes in, as the tab applies a batch: adding it to the
+ * {@link InteractionLog}, which writes it through to disk and indexes it, and notifying a table
+ * sorted by ID with a protocol filter, so the sorter places the new rows. The table starts empty
+ * every iteration and grows by each batch.
+ *
+ * Entries are parsed again before every batch, outside the measurement, because the log takes
+ * their search words.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class TableInsertBenchmark {
+	private static final long MEMORY_BUDGET = 64L * 1024 * 1024;
+
+	@Param({"1", "100", "1000"})
+	public int batchSize;
+
+	private List<byte[]> events;
+	private InteractionLog log;
+	private LogTableModel model;
+	private List<InteractshEntry> batch;
+
+	@Setup(Level.Trial)
+	public void createEvents() {
+		BurpStub.install();
+		Random random = new Random(42);
+		events = new ArrayList<>();
+		for (int i = 0; i < batchSize; i++) {
+			String protocol = Events.PROTOCOLS[random.nextInt(Events.PROTOCOLS.length)];
+			String uniqueId = "c4jup534f3acspvifdr0" + PayloadRegistry.randomNonce();
+			events.add(Events.sample(protocol, uniqueId, Instant.now().plusMillis(i))
+					.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void createTable() {
+		log = new InteractionLog(MEMORY_BUDGET, null);
+		model = new LogTableModel(log);
+		JTable table = new JTable(model);
+		TableRowSorter<TableModel> sorter = new TableRowSorter<>(model);
+		table.setRowSorter(sorter);
+		sorter.setSortKeys(List.of(
+				new RowSorter.SortKey(LogTableModel.Column.ID.ordinal(), SortOrder.DESCENDING)));
+		sorter.setRowFilter(new LogRowFilter(log, Set.of("dns", "http", "smtp"), null, null));
+	}
+
+	@Setup(Level.Invocation)
+	public void parseBatch() {
+		batch = new ArrayList<>(events.size());
+		for (byte[] event : events) {
+			batch.add(new InteractshEntry(event));
+		}
+	}
+
+	@Benchmark
+	public int insertBatch() {
+		int firstRow = log.addAll(batch);
+		model.fireTableRowsInserted(firstRow, log.size() - 1);
+		return firstRow;
+	}
+
+	@TearDown(Level.Iteration)
+	public void closeLog() throws IOException {
+		log.close();
+	}
+}
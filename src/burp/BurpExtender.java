@@ -3,13 +3,24 @@ package burp;
 import burp.api.montoya.BurpExtension;
 import burp.api.montoya.MontoyaApi;
 import burp.api.montoya.extension.ExtensionUnloadingHandler;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.params.ParsedHttpParameter;
+import burp.api.montoya.http.message.requests.HttpRequest;
 import burp.api.montoya.ui.contextmenu.ContextMenuEvent;
 import burp.api.montoya.ui.contextmenu.ContextMenuItemsProvider;
+import burp.api.montoya.ui.contextmenu.MessageEditorHttpRequestResponse;
+import burp.api.montoya.ui.contextmenu.MessageEditorHttpRequestResponse.SelectionContext;
 import burp.gui.Config;
 import burp.gui.InteractshTab;
-import interactsh.InteractshEntry;
+import burp.listeners.OutboundPayloadTracker;
+import burp.listeners.PollScheduler;
+import burp.listeners.SessionPool;
+import interactsh.PayloadRegistry;
+import interactsh.pipeline.InteractionPipeline;
+import interactsh.transport.Transports;
 
 import java.awt.Component;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import javax.swing.JMenuItem;
@@ -18,6 +29,10 @@ public class BurpExtender
 		implements BurpExtension, ContextMenuItemsProvider, ExtensionUnloadingHandler {
 	public static MontoyaApi api;
 	public static InteractshTab tab;
+	public static PollScheduler scheduler;
+	public static SessionPool sessionPool;
+	public static PayloadRegistry payloads;
+	public static OutboundPayloadTracker outboundTracker;
 
 	@Override
 	public void initialize(MontoyaApi api) {
@@ -29,6 +44,13 @@ public class BurpExtender
 		api.logging().logToOutput("Starting Interactsh Collaborator");
 
 		burp.gui.Config.generateConfig();
+		BurpExtender.scheduler = new PollScheduler();
+		BurpExtender.sessionPool = new SessionPool();
+		BurpExtender.payloads = new PayloadRegistry(PayloadRegistry.DEFAULT_TTL_MILLIS,
+				Config.isPersistLog() ? Config.getPayloadStorePath() : null);
+		BurpExtender.outboundTracker = new OutboundPayloadTracker(scheduler, payloads);
+		scheduler.execute(Config::deleteStaleStores);
+		api.http().registerHttpHandler(outboundTracker);
 		BurpExtender.tab = new InteractshTab(api);
 		burp.gui.Config.loadConfig();
 
@@ -38,6 +60,15 @@ public class BurpExtender
 	@Override
 	public void extensionUnloaded() {
 		BurpExtender.tab.cleanup();
+		BurpExtender.scheduler.shutdown();
+		BurpExtender.sessionPool.shutdown();
+		try {
+			BurpExtender.payloads.close();
+		} catch (IOException e) {
+			BurpExtender.api.logging()
+					.logToError("Unable to close payload store: " + e.getMessage());
+		}
+		Transports.closeAll();
 		BurpExtender.api.logging().logToOutput("Thanks for collaborating!");
 	}
 
@@ -49,17 +80,55 @@ public class BurpExtender
 		return Integer.parseInt(Config.getPollInterval());
 	}
 
-	public static void addToTable(InteractshEntry i) {
-		BurpExtender.tab.addToTable(i);
+	public static InteractionPipeline getPipeline() {
+		return BurpExtender.tab.getPipeline();
 	}
 
 	@Override
 	public List<Component> provideMenuItems(ContextMenuEvent event) {
 		List<Component> menuList = new ArrayList<Component>();
 		JMenuItem item = new JMenuItem("Copy Interactsh URL");
-		item.addActionListener(e -> BurpExtender.tab.getListener().copyCurrentUrlToClipboard());
+		PayloadRegistry.Origin origin = getOrigin(event);
+		item.addActionListener(
+				e -> BurpExtender.tab.getListener().copyCurrentUrlToClipboard(origin));
 		menuList.add(item);
 
 		return menuList;
 	}
+
+	// The request the menu was opened on, and the parameter the caret is in if any
+	private static PayloadRegistry.Origin getOrigin(ContextMenuEvent event) {
+		HttpRequestResponse requestResponse = null;
+		String parameter = null;
+		if (event.messageEditorRequestResponse().isPresent()) {
+			MessageEditorHttpRequestResponse editor = event.messageEditorRequestResponse().get();
+			requestResponse = editor.requestResponse();
+			if (editor.selectionContext() == SelectionContext.REQUEST) {
+				parameter = getParameterAt(requestResponse.request(), editor.caretPosition());
+			}
+		} else if (!event.selectedRequestResponses().isEmpty()) {
+			requestResponse = event.selectedRequestResponses().get(0);
+		}
+
+		String target = null;
+		if (requestResponse != null && requestResponse.request() != null) {
+			try {
+				target = requestResponse.request().url();
+			} catch (Exception ex) {
+				// Requests without a service have no URL
+			}
+		}
+		return new PayloadRegistry.Origin(event.toolType().toolName(), target, parameter,
+				System.currentTimeMillis());
+	}
+
+	public static String getParameterAt(HttpRequest request, int caret) {
+		for (ParsedHttpParameter parameter : request.parameters()) {
+			if (parameter.valueOffsets().contains(caret)
+					|| parameter.valueOffsets().endIndexExclusive() == caret) {
+				return parameter.name();
+			}
+		}
+		return null;
+	}
 }
@@ -1,7 +1,29 @@
 package burp.gui;
 
 import burp.BurpExtender;
+import burp.api.montoya.core.BurpSuiteEdition;
+import burp.api.montoya.persistence.PersistedObject;
 import burp.api.montoya.persistence.Preferences;
+import interactsh.PayloadRegistry;
+import interactsh.transport.PollTransport;
+import interactsh.transport.Transports;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import javax.crypto.spec.SecretKeySpec;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
 
 public class Config {
 
@@ -10,6 +32,19 @@ public class Config {
 	private static final String DEFAULT_AUTHORIZATION = "";
 	private static final String DEFAULT_POLL_INTERVAL = "60";
 	private static final String DEFAULT_USES_TLS = "true";
+	private static final String DEFAULT_TRANSPORT = Transports.BURP;
+	private static final String DEFAULT_ADAPTIVE_POLL = "false";
+	private static final String DEFAULT_POLL_MIN = "2";
+	private static final String DEFAULT_POLL_MAX = "300";
+	private static final String DEFAULT_LOG_MEMORY_MB = "64";
+	private static final String DEFAULT_PERSIST_LOG = "false";
+	private static final String DEFAULT_RESUME_SESSIONS = "true";
+	private static final String STORE_DIRECTORY = ".interactsh-collaborator";
+	private static final String STORE_SUFFIX = ".seg";
+	// Stores of other projects that have not been opened for as long as payloads stay valid are
+	// deleted, as are empty ones after a day
+	private static final long STALE_STORE_MILLIS = PayloadRegistry.DEFAULT_TTL_MILLIS;
+	private static final long STALE_EMPTY_STORE_MILLIS = 24L * 60 * 60 * 1000;
 
 	private static Preferences preferences() {
 		return BurpExtender.api.persistence().preferences();
@@ -27,6 +62,13 @@ public class Config {
 			preferences().setString("interactsh-authorization", DEFAULT_AUTHORIZATION);
 			preferences().setString("interactsh-poll-time", DEFAULT_POLL_INTERVAL);
 			preferences().setString("interactsh-uses-tls", DEFAULT_USES_TLS);
+			preferences().setString("interactsh-transport", DEFAULT_TRANSPORT);
+			preferences().setString("interactsh-adaptive-poll", DEFAULT_ADAPTIVE_POLL);
+			preferences().setString("interactsh-poll-min", DEFAULT_POLL_MIN);
+			preferences().setString("interactsh-poll-max", DEFAULT_POLL_MAX);
+			preferences().setString("interactsh-log-memory-mb", DEFAULT_LOG_MEMORY_MB);
+			preferences().setString("interactsh-persist-log", DEFAULT_PERSIST_LOG);
+			preferences().setString("interactsh-resume-sessions", DEFAULT_RESUME_SESSIONS);
 		}
 	}
 
@@ -36,12 +78,27 @@ public class Config {
 		String tls = getString("interactsh-uses-tls", DEFAULT_USES_TLS);
 		String authorization = getString("interactsh-authorization", DEFAULT_AUTHORIZATION);
 		String pollInterval = getString("interactsh-poll-time", DEFAULT_POLL_INTERVAL);
+		String transport = getString("interactsh-transport", DEFAULT_TRANSPORT);
+		String adaptivePoll = getString("interactsh-adaptive-poll", DEFAULT_ADAPTIVE_POLL);
+		String pollMin = getString("interactsh-poll-min", DEFAULT_POLL_MIN);
+		String pollMax = getString("interactsh-poll-max", DEFAULT_POLL_MAX);
+		String logMemory = getString("interactsh-log-memory-mb", DEFAULT_LOG_MEMORY_MB);
+		String persistLog = getString("interactsh-persist-log", DEFAULT_PERSIST_LOG);
+		String resumeSessions =
+				getString("interactsh-resume-sessions", DEFAULT_RESUME_SESSIONS);
 
 		InteractshTab.setServerText(server);
 		InteractshTab.setPortText(port);
 		InteractshTab.setAuthText(authorization);
 		InteractshTab.setPollText(pollInterval);
 		InteractshTab.setTlsBox(Boolean.parseBoolean(tls));
+		InteractshTab.setTransportBox(transport);
+		InteractshTab.setAdaptivePollBox(Boolean.parseBoolean(adaptivePoll));
+		InteractshTab.setPollMinText(pollMin);
+		InteractshTab.setPollMaxText(pollMax);
+		InteractshTab.setLogMemoryText(logMemory);
+		InteractshTab.setPersistLogBox(Boolean.parseBoolean(persistLog));
+		InteractshTab.setResumeSessionsBox(Boolean.parseBoolean(resumeSessions));
 	}
 
 	public static void updateConfig() {
@@ -50,12 +107,29 @@ public class Config {
 		String authorization = InteractshTab.getAuthText();
 		String pollInterval = InteractshTab.getPollText();
 		String tls = InteractshTab.getTlsBox();
+		String transport = InteractshTab.getTransportBox();
+		String adaptivePoll = InteractshTab.getAdaptivePollBox();
+		String pollMin = InteractshTab.getPollMinText();
+		String pollMax = InteractshTab.getPollMaxText();
+		String logMemory = InteractshTab.getLogMemoryText();
+		String persistLog = InteractshTab.getPersistLogBox();
+		String resumeSessions = InteractshTab.getResumeSessionsBox();
 
 		preferences().setString("interactsh-server", server);
 		preferences().setString("interactsh-port", port);
 		preferences().setString("interactsh-uses-tls", tls);
 		preferences().setString("interactsh-poll-time", pollInterval);
 		preferences().setString("interactsh-authorization", authorization);
+		preferences().setString("interactsh-transport", transport);
+		preferences().setString("interactsh-adaptive-poll", adaptivePoll);
+		preferences().setString("interactsh-poll-min", pollMin);
+		preferences().setString("interactsh-poll-max", pollMax);
+		preferences().setString("interactsh-log-memory-mb", logMemory);
+		preferences().setString("interactsh-persist-log", persistLog);
+		preferences().setString("interactsh-resume-sessions", resumeSessions);
+		if (!isResumeSessions()) {
+			setSavedSessions(List.of());
+		}
 	}
 
 	public static String getHost() {
@@ -66,6 +140,50 @@ public class Config {
 		return getString("interactsh-port", DEFAULT_PORT);
 	}
 
+	/**
+	 * Returns the configured servers, in order. The server setting is a comma separated list of
+	 * hosts, each optionally followed by a port; the port setting is the default port, and TLS and
+	 * authorization apply to all of them. An IPv6 address takes a port only in brackets, as in
+	 * {@code [fd00::5]:8443}; without them, all of it is the address.
+	 */
+	public static List<PollTransport.Target> getServers() {
+		int defaultPort = parsePort(getPort(), Integer.parseInt(DEFAULT_PORT));
+		Set<PollTransport.Target> servers = new LinkedHashSet<>();
+		for (String entry : getHost().split(",")) {
+			entry = entry.trim();
+			if (entry.isEmpty()) {
+				continue;
+			}
+			String host = entry;
+			int port = defaultPort;
+			int colon = entry.lastIndexOf(':');
+			if (entry.startsWith("[")) {
+				int bracket = entry.indexOf(']');
+				host = entry.substring(1, bracket < 0 ? entry.length() : bracket);
+				if (bracket >= 0 && colon == bracket + 1) {
+					port = parsePort(entry.substring(colon + 1), defaultPort);
+				}
+			} else if (colon >= 0 && colon == entry.indexOf(':')) {
+				host = entry.substring(0, colon);
+				port = parsePort(entry.substring(colon + 1), defaultPort);
+			}
+			servers.add(new PollTransport.Target(host, port, getScheme(), getAuth()));
+		}
+		if (servers.isEmpty()) {
+			servers.add(new PollTransport.Target(DEFAULT_SERVER, defaultPort, getScheme(),
+					getAuth()));
+		}
+		return new ArrayList<>(servers);
+	}
+
+	private static int parsePort(String port, int defaultPort) {
+		try {
+			return Integer.parseInt(port.trim());
+		} catch (NumberFormatException ne) {
+			return defaultPort;
+		}
+	}
+
 	public static boolean getScheme() {
 		return Boolean.parseBoolean(getString("interactsh-uses-tls", DEFAULT_USES_TLS));
 	}
@@ -77,4 +195,189 @@ public class Config {
 	public static String getPollInterval() {
 		return getString("interactsh-poll-time", DEFAULT_POLL_INTERVAL);
 	}
+
+	public static String getTransport() {
+		return getString("interactsh-transport", DEFAULT_TRANSPORT);
+	}
+
+	public static boolean isAdaptivePolling() {
+		return Boolean.parseBoolean(getString("interactsh-adaptive-poll", DEFAULT_ADAPTIVE_POLL));
+	}
+
+	public static String getPollMin() {
+		return getString("interactsh-poll-min", DEFAULT_POLL_MIN);
+	}
+
+	public static String getPollMax() {
+		return getString("interactsh-poll-max", DEFAULT_POLL_MAX);
+	}
+
+	public static String getLogMemory() {
+		return getString("interactsh-log-memory-mb", DEFAULT_LOG_MEMORY_MB);
+	}
+
+	public static long getLogMemoryBytes() {
+		try {
+			return Math.max(1, Long.parseLong(getLogMemory().trim())) * 1024 * 1024;
+		} catch (NumberFormatException ex) {
+			return Long.parseLong(DEFAULT_LOG_MEMORY_MB) * 1024 * 1024;
+		}
+	}
+
+	// Off unless enabled, and always in Burp Community, whose projects are never saved
+	public static boolean isPersistLog() {
+		return canPersistLog()
+				&& Boolean.parseBoolean(getString("interactsh-persist-log", DEFAULT_PERSIST_LOG));
+	}
+
+	public static boolean canPersistLog() {
+		return BurpExtender.api.burpSuite().version().edition()
+				!= BurpSuiteEdition.COMMUNITY_EDITION;
+	}
+
+	/**
+	 * Returns the file interactions of the current project are stored in. The file is named after
+	 * an ID kept in the project, so every project has its own history.
+	 */
+	public static Path getStorePath() {
+		return getStoreDirectory().resolve(getStoreId() + STORE_SUFFIX);
+	}
+
+	// The file the payloads issued in the current project are stored in
+	public static Path getPayloadStorePath() {
+		return getStoreDirectory().resolve(getStoreId() + ".payloads" + STORE_SUFFIX);
+	}
+
+	private static Path getStoreDirectory() {
+		return Path.of(System.getProperty("user.home"), STORE_DIRECTORY);
+	}
+
+	/**
+	 * Deletes the stores of other projects that have not been opened for a while, and marks those
+	 * of the current project as used. Burp does not tell when a project is deleted, and temporary
+	 * projects are never opened again, so their stores would otherwise stay forever.
+	 */
+	public static void deleteStaleStores() {
+		int deleted = deleteStores(true, STALE_STORE_MILLIS);
+		if (deleted > 0) {
+			BurpExtender.api.logging()
+					.logToOutput("Deleted " + deleted + " stale interaction store files");
+		}
+	}
+
+	/**
+	 * Deletes the stores of all projects, except those of the current project if they are open,
+	 * and returns the number of files deleted.
+	 */
+	public static int deleteAllStores(boolean keepCurrent) {
+		return deleteStores(keepCurrent, 0);
+	}
+
+	private static int deleteStores(boolean keepCurrent, long maxAgeMillis) {
+		Path directory = getStoreDirectory();
+		if (!Files.isDirectory(directory)) {
+			return 0;
+		}
+		String currentId =
+				BurpExtender.api.persistence().extensionData().getString("interactsh-store-id");
+		long now = System.currentTimeMillis();
+		int deleted = 0;
+		try (DirectoryStream<Path> stores =
+				Files.newDirectoryStream(directory, "*" + STORE_SUFFIX)) {
+			for (Path store : stores) {
+				boolean current = currentId != null
+						&& store.getFileName().toString().startsWith(currentId + ".");
+				try {
+					if (current && keepCurrent) {
+						Files.setLastModifiedTime(store, FileTime.fromMillis(now));
+						continue;
+					}
+					long age = now - Files.getLastModifiedTime(store).toMillis();
+					if (age >= maxAgeMillis || Files.size(store) == 0
+							&& age >= Math.min(maxAgeMillis, STALE_EMPTY_STORE_MILLIS)) {
+						Files.delete(store);
+						deleted++;
+					}
+				} catch (IOException e) {
+					BurpExtender.api.logging()
+							.logToError("Unable to delete " + store + ": " + e.getMessage());
+				}
+			}
+		} catch (IOException e) {
+			BurpExtender.api.logging()
+					.logToError("Unable to list " + directory + ": " + e.getMessage());
+		}
+		return deleted;
+	}
+
+	private static String getStoreId() {
+		PersistedObject data = BurpExtender.api.persistence().extensionData();
+		String id = data.getString("interactsh-store-id");
+		if (id == null) {
+			id = UUID.randomUUID().toString();
+			data.setString("interactsh-store-id", id);
+		}
+		return id;
+	}
+
+	/**
+	 * Whether sessions are saved in the project and resumed on the next load. When they are not,
+	 * sessions are deregistered on unload and payloads handed out before stop working.
+	 */
+	public static boolean isResumeSessions() {
+		return Boolean.parseBoolean(
+				getString("interactsh-resume-sessions", DEFAULT_RESUME_SESSIONS));
+	}
+
+	/**
+	 * The key the private key and secret of saved sessions are encrypted with. It is kept in the
+	 * user's Burp settings instead of the project, so a copy of the project file alone does not
+	 * give access to the sessions.
+	 */
+	public static SecretKeySpec getSessionKey() {
+		String encoded = preferences().getString("interactsh-session-key");
+		if (encoded == null) {
+			byte[] key = new byte[32];
+			new SecureRandom().nextBytes(key);
+			encoded = Base64.getEncoder().encodeToString(key);
+			preferences().setString("interactsh-session-key", encoded);
+		}
+		return new SecretKeySpec(Base64.getDecoder().decode(encoded), "AES");
+	}
+
+	// The sessions of the current project, one per server, see InteractshClient.toSessionJson
+	public static List<String> getSavedSessions() {
+		String saved =
+				BurpExtender.api.persistence().extensionData().getString("interactsh-session");
+		List<String> sessions = new ArrayList<>();
+		if (saved == null || !isResumeSessions()) {
+			return sessions;
+		}
+		try {
+			// Before there could be several servers, a single session was saved
+			if (saved.trim().startsWith("{")) {
+				sessions.add(saved);
+			} else {
+				JSONArray array = new JSONArray(saved);
+				for (int i = 0; i < array.length(); i++) {
+					sessions.add(array.get(i).toString());
+				}
+			}
+		} catch (JSONException ex) {
+			BurpExtender.api.logging()
+					.logToError("Unable to read saved sessions: " + ex.getMessage());
+		}
+		return sessions;
+	}
+
+	public static void setSavedSessions(List<String> sessions) {
+		PersistedObject data = BurpExtender.api.persistence().extensionData();
+		if (sessions.isEmpty() || !isResumeSessions()) {
+			data.deleteString("interactsh-session");
+		} else {
+			JSONArray array = new JSONArray();
+			sessions.forEach(session -> array.put(new JSONObject(session)));
+			data.setString("interactsh-session", array.toString());
+		}
+	}
 }
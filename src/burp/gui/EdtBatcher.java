@@ -0,0 +1,148 @@
+package burp.gui;
+
+import interactsh.metrics.Histogram;
+import interactsh.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import lombok.Getter;
+
+/**
+ * Collects items submitted from any thread and hands them to a consumer on the EDT in batches, at
+ * most once per flush interval. However many items arrive, only one flush is pending at a time.
+ * While paused, items are queued but not handed over.
+ *
+ * The queue is bounded, and {@link #submit} blocks while it is full, so a stalled EDT holds up
+ * the submitting thread rather than growing the queue. Its depth and the time submits waited are
+ * recorded like those of an {@link interactsh.pipeline.Stage}.
+ */
+public class EdtBatcher<T> {
+	private static final long OFFER_MILLIS = 100;
+
+	private final BlockingQueue<T> queue;
+	@Getter
+	private final int capacity;
+	private final Histogram depth;
+	private final Histogram stall;
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private final Consumer<List<T>> consumer;
+	private final int maxBatchSize;
+	private final Timer timer;
+	private volatile long firstQueuedNanos;
+	private volatile boolean paused;
+	private volatile boolean stopped;
+
+	@Getter
+	private volatile int lastBatchSize;
+	// Time from the first item of a batch being queued until the batch was applied
+	@Getter
+	private volatile long lastLatencyMillis;
+	@Getter
+	private volatile long lastApplyMillis;
+
+	public EdtBatcher(String name, int flushIntervalMillis, int maxBatchSize, int capacity,
+			Consumer<List<T>> consumer) {
+		this.queue = new LinkedBlockingQueue<>(capacity);
+		this.capacity = capacity;
+		this.depth = Metrics.histogram("pipeline." + name + ".depth", Histogram.Unit.COUNT);
+		this.stall = Metrics.histogram("pipeline." + name + ".stall", Histogram.Unit.NANOS);
+		this.consumer = consumer;
+		this.maxBatchSize = maxBatchSize;
+		this.timer = new Timer(flushIntervalMillis, e -> flush());
+		this.timer.setRepeats(false);
+	}
+
+	// Returns false if the batcher was stopped before the item could be queued
+	public boolean submit(T item) {
+		// Polls still in flight when the tab is unloaded must not reach the closed log
+		if (stopped) {
+			return false;
+		}
+		depth.record(queue.size());
+		if (!queue.offer(item)) {
+			long start = System.nanoTime();
+			try {
+				while (!queue.offer(item, OFFER_MILLIS, TimeUnit.MILLISECONDS)) {
+					if (stopped) {
+						return false;
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			} finally {
+				stall.recordSince(start);
+			}
+		}
+		if (scheduled.compareAndSet(false, true)) {
+			firstQueuedNanos = System.nanoTime();
+			// Restarted from another thread, the timer can fire while a flush is still running,
+			// and Swing then coalesces that event away and nothing is ever flushed again
+			SwingUtilities.invokeLater(timer::restart);
+		}
+		return true;
+	}
+
+	public int getDepth() {
+		return queue.size();
+	}
+
+	public void pause() {
+		paused = true;
+	}
+
+	// Must be called on the EDT
+	public void resume() {
+		paused = false;
+		if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+			firstQueuedNanos = System.nanoTime();
+			timer.restart();
+		}
+	}
+
+	public void discardPending() {
+		queue.clear();
+	}
+
+	public void stop() {
+		stopped = true;
+		timer.stop();
+		queue.clear();
+	}
+
+	private void flush() {
+		long queuedNanos = firstQueuedNanos;
+		scheduled.set(false);
+		if (paused || stopped) {
+			return;
+		}
+
+		List<T> batch = new ArrayList<>(Math.min(queue.size(), maxBatchSize));
+		T item;
+		while (batch.size() < maxBatchSize && (item = queue.poll()) != null) {
+			batch.add(item);
+		}
+
+		if (!batch.isEmpty()) {
+			long start = System.nanoTime();
+			consumer.accept(batch);
+			long end = System.nanoTime();
+			lastBatchSize = batch.size();
+			lastApplyMillis = (end - start) / 1_000_000;
+			lastLatencyMillis = (end - queuedNanos) / 1_000_000;
+		}
+
+		// Anything left over or queued during the flush goes into the next frame
+		if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+			firstQueuedNanos = System.nanoTime();
+			timer.restart();
+		}
+	}
+}
@@ -11,22 +11,34 @@ import java.awt.FlowLayout;
 import java.awt.Font;
 import java.awt.Toolkit;
 import java.awt.datatransfer.StringSelection;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
-import javax.swing.ButtonGroup;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
 import javax.swing.JComponent;
 import javax.swing.JEditorPane;
+import javax.swing.JFileChooser;
 import javax.swing.JLabel;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JSplitPane;
@@ -35,30 +47,62 @@ import javax.swing.JTable;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.JToggleButton;
-import javax.swing.RowFilter;
+import javax.swing.ProgressMonitor;
 import javax.swing.RowSorter;
 import javax.swing.SortOrder;
 import javax.swing.SpringLayout;
 import javax.swing.SwingConstants;
-import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import javax.swing.UIManager;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.event.HyperlinkEvent;
-import javax.swing.table.AbstractTableModel;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.JTableHeader;
 import javax.swing.table.TableColumn;
 import javax.swing.table.TableModel;
 import javax.swing.table.TableRowSorter;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultHighlighter;
+import javax.swing.text.Highlighter;
 import burp.api.montoya.MontoyaApi;
 import burp.api.montoya.ui.editor.HttpRequestEditor;
 import burp.api.montoya.ui.editor.HttpResponseEditor;
 import burp.listeners.InteractshListener;
 import interactsh.InteractshEntry;
+import interactsh.metrics.Metrics;
+import interactsh.pipeline.InteractionPipeline;
+import interactsh.store.InteractionLog;
+import interactsh.store.LogExporter;
+import interactsh.store.SearchResult;
+import interactsh.transport.PollTransport;
+import interactsh.transport.Transports;
 import layout.SpringUtilities;
 import lombok.Getter;
 import lombok.Setter;
 
 public class InteractshTab extends JComponent {
+	private static final int TABLE_FLUSH_MILLIS = 50;
+	private static final int TABLE_MAX_BATCH = 5000;
+	private static final int TABLE_QUEUE_CAPACITY = 2 * TABLE_MAX_BATCH;
+	private static final int SEARCH_DELAY_MILLIS = 300;
+	private static final int HISTORY_CHUNK = 2000;
+	private static final Highlighter.HighlightPainter SEARCH_HIGHLIGHT =
+			new DefaultHighlighter.DefaultHighlightPainter(new Color(255, 200, 0));
+	// Filter buttons and the protocols reported by the server that each of them shows
+	private static final Map<String, List<String>> FILTER_PROTOCOLS = new LinkedHashMap<>();
+
+	static {
+		FILTER_PROTOCOLS.put("HTTP", List.of("http", "https"));
+		FILTER_PROTOCOLS.put("DNS", List.of("dns"));
+		FILTER_PROTOCOLS.put("SMTP", List.of("smtp"));
+		FILTER_PROTOCOLS.put("LDAP", List.of("ldap"));
+		FILTER_PROTOCOLS.put("SMB", List.of("smb"));
+		FILTER_PROTOCOLS.put("FTP", List.of("ftp"));
+	}
+
 	private final MontoyaApi api;
 
 	private JTabbedPane mainPane;
@@ -70,15 +114,40 @@ public class InteractshTab extends JComponent {
 	private JTextField pollField;
 
 	private Table logTable;
-	private final LogTable logTableModel;
+	private final LogTableModel logTableModel;
 
 	private static JTextField serverText;
 	private static JTextField portText;
 	private static JTextField authText;
 	private static JTextField pollText;
 	private static JCheckBox tlsBox;
-
-	private final List<InteractshEntry> log = new ArrayList<>();
+	private static JComboBox<String> transportBox;
+	private static JCheckBox adaptivePollBox;
+	private static JTextField pollMinText;
+	private static JTextField pollMaxText;
+	private static JTextField logMemoryText;
+	private static JCheckBox persistLogBox;
+	private static JCheckBox resumeSessionsBox;
+	private final Timer transportStatsTimer;
+	private final StatsPanel statsPanel;
+
+	private final InteractionLog log;
+	// Whether the log and the payload registry were opened on the stores of the project
+	private final boolean persistLog;
+	private final EdtBatcher<InteractionLog.Written> tableBatcher;
+	@Getter
+	private final InteractionPipeline pipeline;
+	private final JLabel batchStatsLabel = new JLabel();
+	private SwingWorker<Void, List<InteractionLog.StoredRow>> historyLoader;
+
+	private final TableRowSorter<TableModel> sorter;
+	private Set<String> selectedProtocols;
+	// The heads of the groups of duplicates that are shown in full, or null when not collapsing
+	private Set<Integer> expandedGroups;
+	private JTextField searchField;
+	private final JLabel searchStatusLabel = new JLabel();
+	private SearchResult currentSearch;
+	private SwingWorker<SearchResult, Void> searchWorker;
 	private InteractshListener listener;
 
 	private HttpRequestEditor requestViewer;
@@ -90,6 +159,12 @@ public class InteractshTab extends JComponent {
 
 	public InteractshTab(MontoyaApi api) {
 		this.api = api;
+		this.persistLog = Config.isPersistLog();
+		this.log = new InteractionLog(Config.getLogMemoryBytes(),
+				persistLog ? Config.getStorePath() : null);
+		this.tableBatcher = new EdtBatcher<>("render", TABLE_FLUSH_MILLIS, TABLE_MAX_BATCH,
+				TABLE_QUEUE_CAPACITY, this::appendToTable);
+		this.pipeline = new InteractionPipeline(log, tableBatcher::submit);
 		this.listener = new InteractshListener(null);
 
 		setLayout(new BoxLayout(this, BoxLayout.PAGE_AXIS));
@@ -118,25 +193,26 @@ public class InteractshTab extends JComponent {
 		resultsCardPanel.add(resultsPanel, "GENERIC_VIEW");
 		resultsCardPanel.add(viewersSplitPane, "HTTP_VIEW");
 
-		logTableModel = new LogTable();
+		logTableModel = new LogTableModel(log);
 		logTable = new Table(logTableModel);
 		tableSplitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT);
 
-		TableRowSorter<TableModel> sorter = new TableRowSorter<>(logTableModel);
+		sorter = new TableRowSorter<>(logTableModel);
 		logTable.setRowSorter(sorter);
 
 		List<RowSorter.SortKey> sortKeys = new ArrayList<>();
-		sortKeys.add(new RowSorter.SortKey(LogTable.Column.ID.ordinal(), SortOrder.DESCENDING));
+		sortKeys.add(
+				new RowSorter.SortKey(LogTableModel.Column.ID.ordinal(), SortOrder.DESCENDING));
 		sorter.setSortKeys(sortKeys);
 
-		sorter.setComparator(LogTable.Column.TYPE.ordinal(), Comparator.naturalOrder());
-		sorter.setComparator(LogTable.Column.TIME.ordinal(), Comparator.naturalOrder());
+		sorter.setComparator(LogTableModel.Column.TYPE.ordinal(), Comparator.naturalOrder());
+		sorter.setComparator(LogTableModel.Column.TIME.ordinal(), Comparator.naturalOrder());
 
 		JTableHeader header = logTable.getTableHeader();
 		((DefaultTableCellRenderer) header.getDefaultRenderer())
 				.setHorizontalAlignment(SwingConstants.LEFT);
 
-		for (LogTable.Column col : LogTable.Column.values()) {
+		for (LogTableModel.Column col : LogTableModel.Column.values()) {
 			TableColumn tableColumn = logTable.getColumnModel().getColumn(col.ordinal());
 			tableColumn.setPreferredWidth(col.getPreferredWidth());
 			if (col.getMaxWidth() != -1) {
@@ -150,6 +226,24 @@ public class InteractshTab extends JComponent {
 		}
 
 		logTable.setRowSelectionAllowed(true);
+		logTable.addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(MouseEvent e) {
+				int row = logTable.rowAtPoint(e.getPoint());
+				int column = logTable.columnAtPoint(e.getPoint());
+				if (expandedGroups == null || row < 0 || column < 0 || logTable
+						.convertColumnIndexToModel(column) != LogTableModel.Column.HITS.ordinal()) {
+					return;
+				}
+				int head = logTable.convertRowIndexToModel(row);
+				if (log.getHitCount(head) > 1) {
+					if (!expandedGroups.remove(head)) {
+						expandedGroups.add(head);
+					}
+					updateRowFilter();
+				}
+			}
+		});
 		logTable.setColumnSelectionAllowed(true);
 		scrollPane = new JScrollPane(logTable);
 
@@ -166,6 +260,9 @@ public class InteractshTab extends JComponent {
 		JButton copyUrlButton = new JButton("Copy URL to clipboard");
 		JButton refreshButton = new JButton("Refresh");
 		JButton clearLogButton = new JButton("Clear log");
+		JButton markAllReadButton = new JButton("Mark all read");
+		JButton markShownReadButton = new JButton("Mark shown read");
+		JButton exportButton = new JButton("Export...");
 		JLabel pollLabel = new JLabel("Poll Time: ");
 		pollField = new JTextField(Config.getPollInterval(), 4);
 		pollField.setEditable(false);
@@ -195,8 +292,23 @@ public class InteractshTab extends JComponent {
 			});
 		});
 		copyUrlButton.addActionListener(e -> this.listener.copyCurrentUrlToClipboard());
-		refreshButton.addActionListener(e -> this.listener.pollNowAll());
+		refreshButton.addActionListener(e -> burp.BurpExtender.scheduler.pollNowAll());
 		clearLogButton.addActionListener(e -> this.clearLog());
+		markAllReadButton.addActionListener(e -> {
+			log.markAllRead();
+			logTable.repaint();
+			updateUnreadCount();
+		});
+		markShownReadButton.addActionListener(e -> {
+			BitSet shownRows = new BitSet(log.size());
+			for (int row = 0; row < logTable.getRowCount(); row++) {
+				shownRows.set(logTable.convertRowIndexToModel(row));
+			}
+			log.markRead(shownRows);
+			logTable.repaint();
+			updateUnreadCount();
+		});
+		exportButton.addActionListener(e -> exportLog());
 
 		controlsPanel.add(generateUrlButton);
 		controlsPanel.add(Box.createHorizontalStrut(3));
@@ -205,6 +317,12 @@ public class InteractshTab extends JComponent {
 		controlsPanel.add(refreshButton);
 		controlsPanel.add(Box.createHorizontalStrut(3));
 		controlsPanel.add(clearLogButton);
+		controlsPanel.add(Box.createHorizontalStrut(3));
+		controlsPanel.add(markAllReadButton);
+		controlsPanel.add(Box.createHorizontalStrut(3));
+		controlsPanel.add(markShownReadButton);
+		controlsPanel.add(Box.createHorizontalStrut(3));
+		controlsPanel.add(exportButton);
 		controlsPanel.add(Box.createHorizontalStrut(20));
 		controlsPanel.add(pollLabel);
 		controlsPanel.add(pollField);
@@ -213,28 +331,73 @@ public class InteractshTab extends JComponent {
 		JLabel filterLabel = new JLabel("Filter:");
 		filterLabel.setEnabled(false);
 		filterPanel.add(filterLabel);
-		ButtonGroup filterGroup = new ButtonGroup();
-		String[] protocols = {"All", "HTTP", "DNS", "SMTP", "LDAP", "SMB", "FTP"};
-
-		for (String protocol : protocols) {
-			JToggleButton filterButton = new JToggleButton(protocol);
-			filterButton.addActionListener(e -> {
-				String selectedProtocol = filterButton.getText();
-				if ("All".equals(selectedProtocol)) {
-					sorter.setRowFilter(null);
-				} else {
-					sorter.setRowFilter(RowFilter.regexFilter("(?i)" + selectedProtocol,
-							LogTable.Column.TYPE.ordinal()));
+		JToggleButton allButton = new JToggleButton("All", true);
+		List<JToggleButton> protocolButtons = new ArrayList<>();
+		Runnable applyProtocols = () -> {
+			Set<String> selected = new HashSet<>();
+			for (JToggleButton button : protocolButtons) {
+				if (button.isSelected()) {
+					selected.addAll(FILTER_PROTOCOLS.get(button.getText()));
 				}
-			});
+			}
+			allButton.setSelected(selected.isEmpty());
+			selectedProtocols = selected.isEmpty() ? null : selected;
+			updateRowFilter();
+		};
+		allButton.addActionListener(e -> {
+			protocolButtons.forEach(button -> button.setSelected(false));
+			applyProtocols.run();
+		});
+		filterPanel.add(allButton);
 
-			filterGroup.add(filterButton);
+		for (String protocol : FILTER_PROTOCOLS.keySet()) {
+			JToggleButton filterButton = new JToggleButton(protocol);
+			filterButton.addActionListener(e -> applyProtocols.run());
+			protocolButtons.add(filterButton);
 			filterPanel.add(filterButton);
+		}
 
-			if ("All".equals(protocol)) {
-				filterButton.setSelected(true);
+		JToggleButton collapseButton = new JToggleButton("Collapse duplicates");
+		collapseButton.setToolTipText("Show one row per unique ID, protocol and source address"
+				+ " within each minute; click the hit count to expand a row");
+		collapseButton.addActionListener(e -> {
+			expandedGroups = collapseButton.isSelected() ? new HashSet<>() : null;
+			updateRowFilter();
+			logTable.repaint();
+		});
+		filterPanel.add(Box.createHorizontalStrut(10));
+		filterPanel.add(collapseButton);
+
+		JLabel searchLabel = new JLabel("Search:");
+		searchLabel.setEnabled(false);
+		searchField = new JTextField(20);
+		Timer searchDelay = new Timer(SEARCH_DELAY_MILLIS, e -> startSearch());
+		searchDelay.setRepeats(false);
+		searchField.getDocument().addDocumentListener(new DocumentListener() {
+			@Override
+			public void insertUpdate(DocumentEvent e) {
+				searchDelay.restart();
 			}
-		}
+
+			@Override
+			public void removeUpdate(DocumentEvent e) {
+				searchDelay.restart();
+			}
+
+			@Override
+			public void changedUpdate(DocumentEvent e) {
+				searchDelay.restart();
+			}
+		});
+		searchStatusLabel.setEnabled(false);
+		filterPanel.add(Box.createHorizontalStrut(20));
+		filterPanel.add(searchLabel);
+		filterPanel.add(searchField);
+		filterPanel.add(searchStatusLabel);
+
+		batchStatsLabel.setEnabled(false);
+		filterPanel.add(Box.createHorizontalStrut(20));
+		filterPanel.add(batchStatsLabel);
 
 		mainTopPanel.add(controlsPanel);
 		mainTopPanel.add(filterPanel);
@@ -245,9 +408,12 @@ public class InteractshTab extends JComponent {
 		configPanel.setLayout(new BoxLayout(configPanel, BoxLayout.Y_AXIS));
 		JPanel subConfigPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
 		mainPane.addTab("Configuration", configPanel);
+
+		statsPanel = new StatsPanel(log, pipeline, tableBatcher, this::getListener);
+		mainPane.addTab("Stats", statsPanel);
 		configPanel.add(subConfigPanel);
 		JPanel innerConfig = new JPanel();
-		subConfigPanel.setMaximumSize(new Dimension(configPanel.getMaximumSize().width, 250));
+		subConfigPanel.setMaximumSize(new Dimension(configPanel.getMaximumSize().width, 480));
 		innerConfig.setLayout(new SpringLayout());
 		subConfigPanel.add(innerConfig);
 
@@ -255,10 +421,42 @@ public class InteractshTab extends JComponent {
 		portText = new JTextField(Config.getPort(), 20);
 		authText = new JTextField(Config.getAuth(), 20);
 		pollText = new JTextField(Config.getPollInterval(), 20);
+		adaptivePollBox = new JCheckBox("", Config.isAdaptivePolling());
+		pollMinText = new JTextField(Config.getPollMin(), 20);
+		pollMaxText = new JTextField(Config.getPollMax(), 20);
+		logMemoryText = new JTextField(Config.getLogMemory(), 20);
+		persistLogBox = new JCheckBox("", Config.isPersistLog());
+		persistLogBox.setEnabled(Config.canPersistLog());
+		persistLogBox.setToolTipText(Config.canPersistLog()
+				? "<html>Stores interactions and payload origins unencrypted in "
+						+ "~/.interactsh-collaborator, one file per project.<br>Files of "
+						+ "projects not opened for 30 days are deleted. Takes effect on the next "
+						+ "load.</html>"
+				: "Burp Community does not save projects");
+		resumeSessionsBox = new JCheckBox("", Config.isResumeSessions());
+		resumeSessionsBox.setToolTipText("<html>Saves the sessions in the project, with their "
+				+ "keys encrypted with a key kept in the Burp user settings.<br>When off, "
+				+ "sessions are deregistered on unload and earlier payloads stop working.</html>");
+		JButton deleteHistoryButton = new JButton("Delete...");
+		deleteHistoryButton.addActionListener(e -> deleteStoredHistory());
 		tlsBox = new JCheckBox("", true);
 		tlsBox.setSelected(Config.getScheme());
+		transportBox = new JComboBox<>(Transports.names());
+		transportBox.setSelectedItem(Config.getTransport());
+		transportBox.setToolTipText("<html>Burp applies its upstream proxy settings but reads "
+				+ "each poll response into memory whole.<br>Keep-alive and HTTP/2 stream them and "
+				+ "reuse connections, bypassing Burp.</html>");
+		JLabel transportStatsLabel = new JLabel();
+		transportStatsTimer = new Timer(2000, e -> {
+			PollTransport transport = Transports.forName((String) transportBox.getSelectedItem());
+			transportStatsLabel.setText(transport.getStats().toString());
+		});
+		transportStatsTimer.setInitialDelay(0);
+		transportStatsTimer.start();
 
-		innerConfig.add(new JLabel("Server: ", SwingConstants.TRAILING));
+		serverText.setToolTipText("One or more servers separated by commas, each as host or "
+				+ "host:port, or [IPv6]:port. New payloads come from the healthiest one.");
+		innerConfig.add(new JLabel("Servers: ", SwingConstants.TRAILING));
 		innerConfig.add(serverText);
 		innerConfig.add(new JLabel("Port: ", SwingConstants.TRAILING));
 		innerConfig.add(portText);
@@ -266,8 +464,26 @@ public class InteractshTab extends JComponent {
 		innerConfig.add(authText);
 		innerConfig.add(new JLabel("Poll Interval (sec): ", SwingConstants.TRAILING));
 		innerConfig.add(pollText);
+		innerConfig.add(new JLabel("Adaptive Polling: ", SwingConstants.TRAILING));
+		innerConfig.add(adaptivePollBox);
+		innerConfig.add(new JLabel("Min Poll Interval (sec): ", SwingConstants.TRAILING));
+		innerConfig.add(pollMinText);
+		innerConfig.add(new JLabel("Max Poll Interval (sec): ", SwingConstants.TRAILING));
+		innerConfig.add(pollMaxText);
+		innerConfig.add(new JLabel("Log Memory Budget (MB): ", SwingConstants.TRAILING));
+		innerConfig.add(logMemoryText);
+		innerConfig.add(new JLabel("Keep Interactions Across Restarts: ", SwingConstants.TRAILING));
+		innerConfig.add(persistLogBox);
+		innerConfig.add(new JLabel("Resume Sessions Across Restarts: ", SwingConstants.TRAILING));
+		innerConfig.add(resumeSessionsBox);
+		innerConfig.add(new JLabel("Stored History: ", SwingConstants.TRAILING));
+		innerConfig.add(deleteHistoryButton);
 		innerConfig.add(new JLabel("TLS: ", SwingConstants.TRAILING));
 		innerConfig.add(tlsBox);
+		innerConfig.add(new JLabel("Transport: ", SwingConstants.TRAILING));
+		innerConfig.add(transportBox);
+		innerConfig.add(new JLabel("Transport latency: ", SwingConstants.TRAILING));
+		innerConfig.add(transportStatsLabel);
 
 		JButton updateConfigButton = new JButton("Update Settings");
 		updateConfigButton.addActionListener(e -> {
@@ -283,29 +499,24 @@ public class InteractshTab extends JComponent {
 
 			burp.gui.Config.updateConfig();
 			pollField.setText(pollText.getText());
+			log.setMemoryBudget(burp.gui.Config.getLogMemoryBytes());
 
 			boolean criticalSettingChanged = !oldServer.equals(newServer)
 					|| !oldPort.equals(newPort) || !oldAuth.equals(newAuth) || oldTls != newTls;
 
 			if (criticalSettingChanged) {
 				api.logging().logToOutput(
-						"Server configuration changed. Creating new Interact.sh session.");
-				if (listener != null) {
-					listener.close();
-				}
-				this.listener.close();
-				this.listener = new InteractshListener(null);
+						"Server configuration changed. Updating Interact.sh sessions.");
+				listener.updateServers();
 			} else {
-				api.logging().logToOutput("Poll interval updated. Triggering immediate poll.");
-				if (listener != null) {
-					listener.pollNowAll();
-				}
+				api.logging().logToOutput("Poll settings updated. Triggering immediate poll.");
+				burp.BurpExtender.scheduler.pollNowAll();
 			}
 		});
 		innerConfig.add(updateConfigButton);
 		innerConfig.add(new JPanel());
 
-		SpringUtilities.makeCompactGrid(innerConfig, 6, 2, // rows, cols
+		SpringUtilities.makeCompactGrid(innerConfig, 15, 2, // rows, cols
 				6, 6, // initX, initY
 				6, 6); // xPad, yPad
 
@@ -322,6 +533,10 @@ public class InteractshTab extends JComponent {
 		configPanel.add(documentationPanel);
 
 		add(mainPane);
+
+		if (log.isHistoryPending()) {
+			loadHistory();
+		}
 	}
 
 	public InteractshListener getListener() {
@@ -368,6 +583,62 @@ public class InteractshTab extends JComponent {
 		tlsBox.setSelected(value);
 	}
 
+	public static String getAdaptivePollBox() {
+		return Boolean.toString(adaptivePollBox.isSelected());
+	}
+
+	public static void setAdaptivePollBox(boolean value) {
+		adaptivePollBox.setSelected(value);
+	}
+
+	public static String getPollMinText() {
+		return pollMinText.getText();
+	}
+
+	public static void setPollMinText(String text) {
+		pollMinText.setText(text);
+	}
+
+	public static String getPollMaxText() {
+		return pollMaxText.getText();
+	}
+
+	public static void setPollMaxText(String text) {
+		pollMaxText.setText(text);
+	}
+
+	public static String getLogMemoryText() {
+		return logMemoryText.getText();
+	}
+
+	public static void setLogMemoryText(String text) {
+		logMemoryText.setText(text);
+	}
+
+	public static String getPersistLogBox() {
+		return Boolean.toString(persistLogBox.isSelected());
+	}
+
+	public static void setPersistLogBox(boolean value) {
+		persistLogBox.setSelected(value);
+	}
+
+	public static String getResumeSessionsBox() {
+		return Boolean.toString(resumeSessionsBox.isSelected());
+	}
+
+	public static void setResumeSessionsBox(boolean value) {
+		resumeSessionsBox.setSelected(value);
+	}
+
+	public static String getTransportBox() {
+		return (String) transportBox.getSelectedItem();
+	}
+
+	public static void setTransportBox(String value) {
+		transportBox.setSelectedItem(value);
+	}
+
 	private JEditorPane createClickableLink(String html) {
 		JEditorPane editorPane = new JEditorPane("text/html", html);
 		editorPane.setEditable(false);
@@ -402,12 +673,91 @@ public class InteractshTab extends JComponent {
 		return editorPane;
 	}
 
+	private void updateRowFilter() {
+		if (selectedProtocols == null && currentSearch == null && expandedGroups == null) {
+			sorter.setRowFilter(null);
+		} else {
+			sorter.setRowFilter(
+					new LogRowFilter(log, selectedProtocols, currentSearch, expandedGroups));
+		}
+	}
+
+	private void startSearch() {
+		String query = searchField.getText().trim();
+		if (searchWorker != null) {
+			searchWorker.cancel(false);
+		}
+		if (query.isEmpty()) {
+			searchWorker = null;
+			currentSearch = null;
+			searchStatusLabel.setText("");
+			updateRowFilter();
+			return;
+		}
+
+		searchStatusLabel.setText("Searching...");
+		long start = System.nanoTime();
+		searchWorker = new SwingWorker<>() {
+			@Override
+			protected SearchResult doInBackground() {
+				return log.search(query);
+			}
+
+			@Override
+			protected void done() {
+				if (isCancelled()) {
+					return;
+				}
+				try {
+					currentSearch = get();
+					searchStatusLabel.setText(currentSearch.getMatchCount() + " matches in "
+							+ (System.nanoTime() - start) / 1_000_000 + " ms");
+					updateRowFilter();
+				} catch (Exception ex) {
+					searchStatusLabel.setText("Search failed");
+					api.logging().logToError("Search failed: " + ex.getMessage());
+				}
+			}
+		};
+		searchWorker.execute();
+	}
+
+	private void highlightSearch() {
+		String query = currentSearch == null ? "" : currentSearch.getQuery();
+		requestViewer.setSearchExpression(query);
+		responseViewer.setSearchExpression(query);
+
+		Highlighter highlighter = genericDetailsViewer.getHighlighter();
+		highlighter.removeAllHighlights();
+		if (query.isEmpty()) {
+			return;
+		}
+		String text = genericDetailsViewer.getText();
+		int firstMatch = -1;
+		for (int i = 0; i <= text.length() - query.length(); i++) {
+			if (text.regionMatches(true, i, query, 0, query.length())) {
+				try {
+					highlighter.addHighlight(i, i + query.length(), SEARCH_HIGHLIGHT);
+				} catch (BadLocationException e) {
+					break;
+				}
+				if (firstMatch < 0) {
+					firstMatch = i;
+				}
+				i += query.length() - 1;
+			}
+		}
+		if (firstMatch >= 0) {
+			genericDetailsViewer.setCaretPosition(firstMatch);
+		}
+	}
+
 	private void updateUnreadCount() {
 		Container parent = getParent();
 		if (parent instanceof JTabbedPane tabbedPane) {
 			int tabIndex = tabbedPane.indexOfComponent(this);
 			if (tabIndex != -1) {
-				long unreadCount = log.stream().filter(e -> !e.isRead()).count();
+				int unreadCount = log.getUnreadCount();
 				String newTitle = "Interactsh";
 				if (unreadCount > 0) {
 					newTitle += " (" + unreadCount + ")";
@@ -417,20 +767,219 @@ public class InteractshTab extends JComponent {
 		}
 	}
 
-	public void addToTable(InteractshEntry i) {
-		SwingUtilities.invokeLater(() -> {
-			synchronized (log) {
-				log.add(i);
-				int rowIndex = log.size() - 1;
-				logTableModel.fireTableRowsInserted(rowIndex, rowIndex);
-				updateUnreadCount();
+	// The render stage of the pipeline
+	private void appendToTable(List<InteractionLog.Written> batch) {
+		long start = System.nanoTime();
+		synchronized (log) {
+			int firstRow = log.addWritten(batch);
+			// Entries written before the log was cleared are left out
+			if (firstRow < log.size()) {
+				logTableModel.fireTableRowsInserted(firstRow, log.size() - 1);
 			}
-		});
+			updateUnreadCount();
+		}
+		// Duplicates only change the hit count of rows that are already shown
+		if (expandedGroups != null) {
+			logTable.repaint();
+		}
+		Metrics.TABLE_APPEND.recordSince(start);
+		Metrics.TABLE_BATCH.record(batch.size());
+		Metrics.TABLE_ROWS.add(batch.size());
+		Instant now = Instant.now();
+		for (InteractionLog.Written written : batch) {
+			Metrics.SERVER_TO_ROW
+					.record(Duration.between(written.entry().timestamp, now).toNanos());
+		}
+		batchStatsLabel.setText("Last update: " + tableBatcher.getLastBatchSize() + " rows, "
+				+ tableBatcher.getLastLatencyMillis() + " ms after arrival");
+	}
+
+	// New interactions are held back until the stored ones are in the table, so rows stay in order
+	private void loadHistory() {
+		tableBatcher.pause();
+		batchStatsLabel.setText("Loading stored interactions...");
+		historyLoader = new SwingWorker<>() {
+			@Override
+			protected Void doInBackground() throws IOException {
+				log.readHistory(HISTORY_CHUNK, rows -> {
+					if (isCancelled()) {
+						return false;
+					}
+					publish(rows);
+					return true;
+				});
+				return null;
+			}
+
+			@Override
+			protected void process(List<List<InteractionLog.StoredRow>> chunks) {
+				synchronized (log) {
+					int firstRow = log.size();
+					for (List<InteractionLog.StoredRow> rows : chunks) {
+						if (isCancelled() || !log.addStored(rows)) {
+							return;
+						}
+					}
+					logTableModel.fireTableRowsInserted(firstRow, log.size() - 1);
+				}
+				batchStatsLabel.setText("Loading stored interactions: " + log.size());
+			}
+
+			@Override
+			protected void done() {
+				log.finishHistory();
+				historyLoader = null;
+				tableBatcher.resume();
+				if (isCancelled()) {
+					return;
+				}
+				try {
+					get();
+					batchStatsLabel.setText("Loaded " + log.size() + " stored interactions");
+				} catch (Exception ex) {
+					batchStatsLabel.setText("Unable to load stored interactions");
+					api.logging().logToError(
+							"Unable to load stored interactions: " + ex.getMessage());
+				}
+				// The search ran before the stored rows were added
+				if (currentSearch != null) {
+					startSearch();
+				}
+			}
+		};
+		historyLoader.execute();
+	}
+
+	/**
+	 * Asks for a file and a format and exports either all rows or the ones shown, in the order
+	 * they are shown. The rows are written by a worker while a progress dialog offers to cancel.
+	 */
+	private void exportLog() {
+		JFileChooser chooser = new JFileChooser();
+		chooser.setDialogTitle("Export interactions");
+		chooser.setAcceptAllFileFilterUsed(false);
+		Map<FileNameExtensionFilter, LogExporter.Format> formats = new LinkedHashMap<>();
+		for (LogExporter.Format format : LogExporter.Format.values()) {
+			FileNameExtensionFilter filter = new FileNameExtensionFilter(
+					format.getDescription() + " (*." + format.getExtension() + ")",
+					format.getExtension());
+			formats.put(filter, format);
+			chooser.addChoosableFileFilter(filter);
+		}
+		chooser.setFileFilter(formats.keySet().iterator().next());
+		JCheckBox shownOnlyBox = new JCheckBox("Only rows shown by the filter",
+				logTable.getRowCount() < log.size());
+		chooser.setAccessory(shownOnlyBox);
+		if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+			return;
+		}
+
+		LogExporter.Format format = formats.get(chooser.getFileFilter());
+		Path path = chooser.getSelectedFile().toPath();
+		if (!path.getFileName().toString().contains(".")) {
+			path = path.resolveSibling(path.getFileName() + "." + format.getExtension());
+		}
+		if (Files.exists(path) && JOptionPane.showConfirmDialog(this,
+				path.getFileName() + " already exists. Replace it?", "Export interactions",
+				JOptionPane.YES_NO_OPTION) != JOptionPane.YES_OPTION) {
+			return;
+		}
+
+		// Taken on the EDT, as the shown rows change along with the table
+		int[] rows;
+		if (shownOnlyBox.isSelected()) {
+			rows = new int[logTable.getRowCount()];
+			for (int row = 0; row < rows.length; row++) {
+				rows[row] = logTable.convertRowIndexToModel(row);
+			}
+		} else {
+			rows = new int[log.size()];
+			for (int row = 0; row < rows.length; row++) {
+				rows[row] = row;
+			}
+		}
+
+		LogExporter exporter = new LogExporter(log, format, rows);
+		ProgressMonitor progressMonitor = new ProgressMonitor(this,
+				"Exporting " + rows.length + " interactions to " + path.getFileName(), null, 0,
+				Math.max(1, rows.length));
+		progressMonitor.setMillisToDecideToPopup(200);
+		Path exportPath = path;
+		long start = System.nanoTime();
+		SwingWorker<Boolean, Integer> exportWorker = new SwingWorker<>() {
+			@Override
+			protected Boolean doInBackground() throws IOException {
+				return exporter.export(exportPath, this::publish, progressMonitor::isCanceled);
+			}
+
+			@Override
+			protected void process(List<Integer> done) {
+				int exported = done.get(done.size() - 1);
+				progressMonitor.setProgress(exported);
+				progressMonitor.setNote(exported + " of " + rows.length);
+			}
+
+			@Override
+			protected void done() {
+				progressMonitor.close();
+				try {
+					if (!get()) {
+						api.logging().logToOutput("Export to " + exportPath + " cancelled");
+						return;
+					}
+					api.logging().logToOutput("Exported " + exporter.getExported()
+							+ " interactions to " + exportPath + " in "
+							+ (System.nanoTime() - start) / 1_000_000 + " ms"
+							+ (exporter.getSkipped() == 0 ? ""
+									: ", skipped " + exporter.getSkipped()));
+				} catch (Exception ex) {
+					Throwable cause = ex.getCause() == null ? ex : ex.getCause();
+					api.logging().logToError("Export failed: " + cause.getMessage());
+					JOptionPane.showMessageDialog(InteractshTab.this,
+							"Export failed: " + cause.getMessage(), "Export interactions",
+							JOptionPane.ERROR_MESSAGE);
+				}
+			}
+		};
+		exportWorker.execute();
+	}
+
+	// Deletes the interactions and payloads stored by every project, including this one
+	private void deleteStoredHistory() {
+		String message = "Delete the interactions and payload origins stored on disk by all "
+				+ "projects?" + (persistLog ? " This also clears the table." : "");
+		if (JOptionPane.showConfirmDialog(this, message, "Delete stored history",
+				JOptionPane.OK_CANCEL_OPTION,
+				JOptionPane.WARNING_MESSAGE) != JOptionPane.OK_OPTION) {
+			return;
+		}
+		if (persistLog) {
+			clearLog();
+			try {
+				burp.BurpExtender.payloads.clearStore();
+			} catch (IOException ex) {
+				api.logging().logToError("Unable to delete stored payloads: " + ex.getMessage());
+			}
+		}
+		int deleted = Config.deleteAllStores(persistLog);
+		api.logging().logToOutput("Deleted stored history, " + deleted + " files removed");
 	}
 
 	private void clearLog() {
 		synchronized (log) {
+			if (historyLoader != null) {
+				historyLoader.cancel(false);
+			}
+			tableBatcher.discardPending();
 			log.clear();
+			if (expandedGroups != null) {
+				expandedGroups.clear();
+			}
+			if (currentSearch != null) {
+				currentSearch = null;
+				updateRowFilter();
+				startSearch();
+			}
 			requestViewer.setRequest(null);
 			responseViewer.setResponse(null);
 			genericDetailsViewer.setText("");
@@ -454,31 +1003,42 @@ public class InteractshTab extends JComponent {
 				return;
 			}
 
-			InteractshEntry selectedEntry = log.get(modelRow);
-
-			if (!selectedEntry.isRead()) {
-				selectedEntry.setRead(true);
+			if (log.setRead(modelRow)) {
 				logTableModel.fireTableRowsUpdated(modelRow, modelRow);
 				updateUnreadCount();
 			}
 
+			// The details are only parsed now, and the row may have to be read back from disk
+			try {
+				showDetails(log.getWithDetails(modelRow));
+			} catch (RuntimeException ex) {
+				resultsLayout.show(resultsCardPanel, "GENERIC_VIEW");
+				genericDetailsViewer.setText("Unable to show interaction: " + ex.getMessage());
+				genericDetailsViewer.setCaretPosition(0);
+				api.logging().logToError(
+						"Unable to show interaction " + (modelRow + 1) + ": " + ex.getMessage());
+			}
+			highlightSearch();
+
+			super.changeSelection(row, col, toggle, extend);
+		}
+
+		private void showDetails(InteractshEntry selectedEntry) {
 			if (selectedEntry.protocol.equals("http") || selectedEntry.protocol.equals("https")) {
 				resultsLayout.show(resultsCardPanel, "HTTP_VIEW");
-				if (selectedEntry.httpRequest != null) {
-					requestViewer.setRequest(selectedEntry.httpRequest);
-					responseViewer.setResponse(selectedEntry.httpResponse);
+				if (selectedEntry.getHttpRequest() != null) {
+					requestViewer.setRequest(selectedEntry.getHttpRequest());
+					responseViewer.setResponse(selectedEntry.getHttpResponse());
 				} else {
 					resultsLayout.show(resultsCardPanel, "GENERIC_VIEW");
-					genericDetailsViewer.setText(selectedEntry.details);
+					genericDetailsViewer.setText(selectedEntry.getDetails());
 					genericDetailsViewer.setCaretPosition(0);
 				}
 			} else {
 				resultsLayout.show(resultsCardPanel, "GENERIC_VIEW");
-				genericDetailsViewer.setText(selectedEntry.details);
+				genericDetailsViewer.setText(selectedEntry.getDetails());
 				genericDetailsViewer.setCaretPosition(0);
 			}
-
-			super.changeSelection(row, col, toggle, extend);
 		}
 	}
 
@@ -503,14 +1063,18 @@ public class InteractshTab extends JComponent {
 
 			if (value instanceof Instant) {
 				setText(FORMATTER.format((Instant) value));
+			} else if (value instanceof Integer hits && expandedGroups != null && hits > 1
+					&& table.convertColumnIndexToModel(column)
+							== LogTableModel.Column.HITS.ordinal()) {
+				int head = table.convertRowIndexToModel(row);
+				setText((expandedGroups.contains(head) ? "\u25BE " : "\u25B8 ") + hits);
 			} else {
 				setText(value == null ? "" : value.toString());
 			}
 
 			if (!isSelected) {
 				int modelRow = table.convertRowIndexToModel(row);
-				InteractshEntry entry = log.get(modelRow);
-				c.setFont(entry.isRead() ? plainFont : boldFont);
+				c.setFont(log.isRead(modelRow) ? plainFont : boldFont);
 			}
 
 			setHorizontalAlignment(SwingConstants.LEFT);
@@ -519,71 +1083,24 @@ public class InteractshTab extends JComponent {
 		}
 	}
 
-	private class LogTable extends AbstractTableModel {
-		public enum Column {
-			ID("ID", Integer.class, 50, 80), ENTRY("Entry", String.class, 120, -1), TYPE("Type",
-					String.class, 70, 100), SOURCE_IP("Source IP address", String.class, 120,
-							-1), TIME("Time", Instant.class, 150, -1);
-
-			@Getter
-			private final String name;
-			@Getter
-			private final Class<?> type;
-			@Getter
-			private final int preferredWidth;
-			@Getter
-			private final int maxWidth;
-
-			Column(String name, Class<?> type, int preferredWidth, int maxWidth) {
-				this.name = name;
-				this.type = type;
-				this.preferredWidth = preferredWidth;
-				this.maxWidth = maxWidth;
-			}
-		}
-
-		@Override
-		public int getRowCount() {
-			return log.size();
-		}
-
-		@Override
-		public int getColumnCount() {
-			return Column.values().length;
-		}
-
-		@Override
-		public String getColumnName(int columnIndex) {
-			return Column.values()[columnIndex].getName();
+	public void cleanup() {
+		transportStatsTimer.stop();
+		statsPanel.stop();
+		if (historyLoader != null) {
+			historyLoader.cancel(false);
 		}
-
-		@Override
-		public Class<?> getColumnClass(int columnIndex) {
-			return Column.values()[columnIndex].getType();
+		pipeline.stop();
+		tableBatcher.stop();
+		// Sessions that are not resumed on the next load would only linger on the server
+		if (Config.isResumeSessions()) {
+			listener.suspend();
+		} else {
+			listener.close();
 		}
-
-		@Override
-		public Object getValueAt(int rowIndex, int columnIndex) {
-			InteractshEntry ie = log.get(rowIndex);
-
-			switch (Column.values()[columnIndex]) {
-				case ID:
-					return rowIndex + 1;
-				case ENTRY:
-					return ie.uid;
-				case TYPE:
-					return ie.protocol;
-				case SOURCE_IP:
-					return ie.address;
-				case TIME:
-					return ie.timestamp;
-				default:
-					return "";
-			}
+		try {
+			log.close();
+		} catch (IOException e) {
+			api.logging().logToError("Unable to close interaction store: " + e.getMessage());
 		}
 	}
-
-	public void cleanup() {
-		listener.close();
-	}
 }
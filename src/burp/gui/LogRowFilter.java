@@ -0,0 +1,49 @@
+package burp.gui;
+
+import interactsh.store.InteractionLog;
+import interactsh.store.SearchResult;
+
+import java.util.Collection;
+import java.util.Set;
+import javax.swing.RowFilter;
+import javax.swing.table.TableModel;
+
+/**
+ * Shows the rows of the selected protocols that match the current search. Protocols are looked up
+ * in the per-protocol row sets of the {@link InteractionLog} and searches in a precomputed
+ * {@link SearchResult}, both by model index, so filtering does not read the entries themselves.
+ *
+ * When duplicates are collapsed, only the first row of each group of duplicates is shown, along
+ * with the rest of the groups that have been expanded.
+ */
+public class LogRowFilter extends RowFilter<TableModel, Integer> {
+	private final InteractionLog log;
+	private final Set<String> protocols;
+	private final SearchResult search;
+	private final Set<Integer> expandedGroups;
+
+	// A null protocol set shows all protocols, a null search shows all rows, and null expanded
+	// groups shows duplicates
+	public LogRowFilter(InteractionLog log, Set<String> protocols, SearchResult search,
+			Collection<Integer> expandedGroups) {
+		this.log = log;
+		this.protocols = protocols == null ? null : Set.copyOf(protocols);
+		this.search = search;
+		this.expandedGroups = expandedGroups == null ? null : Set.copyOf(expandedGroups);
+	}
+
+	@Override
+	public boolean include(Entry<? extends TableModel, ? extends Integer> entry) {
+		int row = entry.getIdentifier();
+		if (expandedGroups != null) {
+			int head = log.getGroupHead(row);
+			if (head != row && !expandedGroups.contains(head)) {
+				return false;
+			}
+		}
+		if (protocols != null && !log.hasProtocol(row, protocols)) {
+			return false;
+		}
+		return search == null || search.matches(row);
+	}
+}
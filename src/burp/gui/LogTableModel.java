@@ -0,0 +1,98 @@
+package burp.gui;
+
+import java.time.Instant;
+import javax.swing.table.AbstractTableModel;
+import interactsh.InteractshEntry;
+import interactsh.PayloadRegistry;
+import interactsh.store.InteractionLog;
+import lombok.Getter;
+
+/**
+ * The columns of the interaction table, read from the {@link InteractionLog} by row index.
+ */
+public class LogTableModel extends AbstractTableModel {
+	private final InteractionLog log;
+
+	public LogTableModel(InteractionLog log) {
+		this.log = log;
+	}
+
+	public enum Column {
+		ID("ID", Integer.class, 50, 80),
+		HITS("Hits", Integer.class, 50, 70),
+		ENTRY("Entry", String.class, 120, -1),
+		TYPE("Type", String.class, 70, 100),
+		SOURCE_IP("Source IP address", String.class, 120, -1),
+		TIME("Time", Instant.class, 150, -1),
+		ORIGIN("Origin", String.class, 250, -1);
+
+		@Getter
+		private final String name;
+		@Getter
+		private final Class<?> type;
+		@Getter
+		private final int preferredWidth;
+		@Getter
+		private final int maxWidth;
+
+		Column(String name, Class<?> type, int preferredWidth, int maxWidth) {
+			this.name = name;
+			this.type = type;
+			this.preferredWidth = preferredWidth;
+			this.maxWidth = maxWidth;
+		}
+	}
+
+	@Override
+	public int getRowCount() {
+		return log.size();
+	}
+
+	@Override
+	public int getColumnCount() {
+		return Column.values().length;
+	}
+
+	@Override
+	public String getColumnName(int columnIndex) {
+		return Column.values()[columnIndex].getName();
+	}
+
+	@Override
+	public Class<?> getColumnClass(int columnIndex) {
+		return Column.values()[columnIndex].getType();
+	}
+
+	@Override
+	public Object getValueAt(int rowIndex, int columnIndex) {
+		Column column = Column.values()[columnIndex];
+		// Sorting by ID, hits, type or time must not page spilled entries back in
+		switch (column) {
+			case ID:
+				return rowIndex + 1;
+			case HITS:
+				int hits = log.getHitCount(rowIndex);
+				return hits == 0 ? null : hits;
+			case TYPE:
+				return log.getProtocol(rowIndex);
+			case TIME:
+				return log.getTimestamp(rowIndex);
+			default:
+				break;
+		}
+		InteractshEntry ie = log.get(rowIndex);
+
+		switch (column) {
+			case ENTRY:
+				return ie.uid;
+			case SOURCE_IP:
+				return ie.address;
+			case ORIGIN:
+				PayloadRegistry.Origin origin =
+						burp.BurpExtender.payloads.resolve(ie.uid);
+				return origin == null ? "" : origin.toString();
+			default:
+				return "";
+		}
+	}
+}
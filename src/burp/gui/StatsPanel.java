@@ -0,0 +1,232 @@
+package burp.gui;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.function.Supplier;
+import javax.swing.JButton;
+import javax.swing.JFileChooser;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import javax.swing.Timer;
+import burp.listeners.InteractshListener;
+import burp.listeners.OutboundPayloadTracker;
+import interactsh.InteractshClient;
+import interactsh.metrics.Histogram;
+import interactsh.metrics.Metrics;
+import interactsh.pipeline.InteractionPipeline;
+import interactsh.pipeline.Stage;
+import interactsh.store.InteractionLog;
+import interactsh.transport.PollTransport;
+import interactsh.transport.Transports;
+
+/**
+ * Shows the {@link Metrics} next to the statistics the other parts of the extension keep, as a
+ * plain text report that is refreshed while the tab is visible and can be saved to a file.
+ */
+public class StatsPanel extends JPanel {
+	private static final int REFRESH_MILLIS = 1000;
+
+	private final InteractionLog log;
+	private final InteractionPipeline pipeline;
+	private final EdtBatcher<?> tableBatcher;
+	private final Supplier<InteractshListener> listener;
+	private final JTextArea reportArea = new JTextArea();
+	private final JLabel statusLabel = new JLabel();
+	private final Timer refreshTimer;
+
+	// Counter values at the previous refresh, to turn them into rates
+	private Map<String, Long> lastCounters = Metrics.getCounters();
+	private long lastRefreshNanos = System.nanoTime();
+	private long resetNanos = System.nanoTime();
+
+	public StatsPanel(InteractionLog log, InteractionPipeline pipeline, EdtBatcher<?> tableBatcher,
+			Supplier<InteractshListener> listener) {
+		super(new BorderLayout());
+		this.log = log;
+		this.pipeline = pipeline;
+		this.tableBatcher = tableBatcher;
+		this.listener = listener;
+
+		reportArea.setEditable(false);
+		reportArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, reportArea.getFont().getSize()));
+
+		JButton dumpButton = new JButton("Dump to File...");
+		dumpButton.addActionListener(e -> dumpToFile());
+		JButton resetButton = new JButton("Reset");
+		resetButton.addActionListener(e -> {
+			Metrics.reset();
+			lastCounters = Metrics.getCounters();
+			lastRefreshNanos = System.nanoTime();
+			resetNanos = lastRefreshNanos;
+			refresh();
+		});
+		JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEADING));
+		buttonPanel.add(dumpButton);
+		buttonPanel.add(resetButton);
+		buttonPanel.add(statusLabel);
+
+		add(buttonPanel, BorderLayout.PAGE_START);
+		add(new JScrollPane(reportArea), BorderLayout.CENTER);
+
+		refreshTimer = new Timer(REFRESH_MILLIS, e -> {
+			if (isShowing()) {
+				refresh();
+			}
+		});
+		refreshTimer.start();
+	}
+
+	public void stop() {
+		refreshTimer.stop();
+	}
+
+	private void refresh() {
+		long now = System.nanoTime();
+		Map<String, Long> counters = Metrics.getCounters();
+		int caret = reportArea.getCaretPosition();
+		reportArea.setText(formatReport(counters, now));
+		reportArea.setCaretPosition(Math.min(caret, reportArea.getDocument().getLength()));
+		lastCounters = counters;
+		lastRefreshNanos = now;
+	}
+
+	private void dumpToFile() {
+		JFileChooser chooser = new JFileChooser();
+		chooser.setSelectedFile(new File("interactsh-stats-"
+				+ LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"))
+				+ ".txt"));
+		if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+			return;
+		}
+		File file = chooser.getSelectedFile();
+		try {
+			String report = formatReport(Metrics.getCounters(), System.nanoTime());
+			Files.writeString(file.toPath(), report, StandardCharsets.UTF_8);
+			statusLabel.setText("Saved to " + file.getName());
+		} catch (IOException ex) {
+			statusLabel.setText("Unable to save statistics");
+			burp.BurpExtender.api.logging()
+					.logToError("Unable to save statistics: " + ex.getMessage());
+		}
+	}
+
+	// Rates are relative to the previous refresh, which this does not change
+	private String formatReport(Map<String, Long> counters, long now) {
+		StringBuilder report = new StringBuilder();
+		report.append("Interactsh statistics at ")
+				.append(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+				.append("\n\n");
+
+		double interval = Math.max(1, now - lastRefreshNanos) / 1e9;
+		double sinceReset = Math.max(1, now - resetNanos) / 1e9;
+		report.append(String.format("%-22s %12s %12s %12s%n", "Counter", "Total", "Per sec",
+				"Avg per sec"));
+		counters.forEach((name, value) -> {
+			long delta = value - lastCounters.getOrDefault(name, 0L);
+			report.append(String.format("%-22s %12d %12.1f %12.1f%n", name, value,
+					delta / interval, value / sinceReset));
+		});
+
+		report.append(String.format("%n%-22s %10s %10s %10s %10s %10s %10s%n", "Histogram",
+				"Count", "p50", "p90", "p99", "Max", "Mean"));
+		for (Histogram histogram : Metrics.getHistograms()) {
+			report.append(String.format("%-22s %10d %10s %10s %10s %10s %10s%n",
+					histogram.getName(), histogram.getCount(),
+					format(histogram, histogram.getPercentile(0.5)),
+					format(histogram, histogram.getPercentile(0.9)),
+					format(histogram, histogram.getPercentile(0.99)),
+					format(histogram, histogram.getMax()),
+					format(histogram, histogram.getMean())));
+		}
+
+		report.append("\nPipeline queues\n");
+		for (Stage<?> stage : pipeline.getStages()) {
+			report.append(String.format("  %-20s %d of %d chunks%n", stage.getName(),
+					stage.getDepth(), stage.getCapacity()));
+		}
+		report.append(String.format("  %-20s %d of %d rows%n", "render", tableBatcher.getDepth(),
+				tableBatcher.getCapacity()));
+
+		report.append("\nTransports (time to response headers)\n");
+		for (PollTransport transport : Transports.all()) {
+			report.append(String.format("  %-20s %s%n", transport.getName(),
+					transport.getStats()));
+		}
+
+		report.append("\nSessions\n");
+		long keyHits = 0;
+		long keyMisses = 0;
+		int sessions = 0;
+		if (burp.BurpExtender.scheduler != null) {
+			for (InteractshClient client : burp.BurpExtender.scheduler.getClients()) {
+				keyHits += client.getKeyCacheHits();
+				keyMisses += client.getKeyCacheMisses();
+				sessions++;
+			}
+		}
+		report.append(String.format("  %-20s %d%n", "active", sessions));
+		report.append(String.format("  %-20s %d hits, %d misses%n", "AES key cache", keyHits,
+				keyMisses));
+		if (burp.BurpExtender.sessionPool != null) {
+			report.append(String.format("  %-20s %s%n", "spare sessions",
+					burp.BurpExtender.sessionPool));
+		}
+
+		InteractshListener currentListener = listener.get();
+		if (currentListener != null) {
+			report.append("\nServers (new payloads from *)\n");
+			InteractshClient best = currentListener.getBestClient();
+			for (InteractshClient client : currentListener.getClients()) {
+				PollTransport.Target target = client.getTarget();
+				report.append(String.format("%s %-20s %s%n", client == best ? " *" : "  ",
+						target.uriHost() + ":" + target.port(), client.getHealth()));
+			}
+		}
+
+		OutboundPayloadTracker tracker = burp.BurpExtender.outboundTracker;
+		if (tracker != null) {
+			report.append("\nOutgoing requests\n");
+			report.append(String.format("  %-20s %d%n", "scanned", tracker.getRequestsScanned()));
+			report.append(String.format("  %-20s %d%n", "payloads found",
+					tracker.getPayloadsFound()));
+			report.append(String.format("  %-20s %.1f us%n", "average scan",
+					tracker.getAverageScanNanos() / 1000.0));
+		}
+		if (burp.BurpExtender.payloads != null) {
+			report.append(String.format("  %-20s %d%n", "tracked payloads",
+					burp.BurpExtender.payloads.size()));
+		}
+
+		report.append("\nInteraction log\n");
+		report.append(String.format("  %-20s %d%n", "rows", log.size()));
+		report.append(String.format("  %-20s %d%n", "in memory", log.getResidentCount()));
+		report.append(String.format("  %-20s %d%n", "unread", log.getUnreadCount()));
+		report.append(String.format("  %-20s %d rows, %d ms after arrival, applied in %d ms%n",
+				"last table update", tableBatcher.getLastBatchSize(),
+				tableBatcher.getLastLatencyMillis(), tableBatcher.getLastApplyMillis()));
+		return report.toString();
+	}
+
+	private static String format(Histogram histogram, long value) {
+		if (histogram.getUnit() == Histogram.Unit.COUNT) {
+			return Long.toString(value);
+		}
+		if (value < 1_000_000) {
+			return String.format("%.1f us", value / 1e3);
+		}
+		if (value < 1_000_000_000) {
+			return String.format("%.1f ms", value / 1e6);
+		}
+		return String.format("%.2f s", value / 1e9);
+	}
+}
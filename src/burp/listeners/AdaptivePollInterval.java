@@ -0,0 +1,44 @@
+package burp.listeners;
+
+import burp.gui.Config;
+
+/**
+ * Tracks the poll interval of a single session. While interactions keep arriving, the interval is
+ * halved down to the configured floor; each empty poll grows it by half again up to the ceiling.
+ * With adaptive polling disabled it always returns the fixed poll time.
+ */
+class AdaptivePollInterval {
+	private static final double BACKOFF_FACTOR = 1.5;
+
+	private long currentMillis = -1;
+
+	synchronized long next(int interactions) {
+		long baseMillis = burp.BurpExtender.getPollTime() * 1000L;
+		if (!Config.isAdaptivePolling()) {
+			currentMillis = -1;
+			return baseMillis;
+		}
+
+		long floorMillis = parseSeconds(Config.getPollMin(), baseMillis);
+		long ceilingMillis = Math.max(floorMillis, parseSeconds(Config.getPollMax(), baseMillis));
+		if (currentMillis < 0) {
+			currentMillis = baseMillis;
+		}
+
+		if (interactions > 0) {
+			currentMillis = currentMillis / 2;
+		} else {
+			currentMillis = (long) (currentMillis * BACKOFF_FACTOR);
+		}
+		currentMillis = Math.min(ceilingMillis, Math.max(floorMillis, currentMillis));
+		return currentMillis;
+	}
+
+	private static long parseSeconds(String value, long fallbackMillis) {
+		try {
+			return Math.max(1, Integer.parseInt(value.trim())) * 1000L;
+		} catch (NumberFormatException | NullPointerException ex) {
+			return fallbackMillis;
+		}
+	}
+}
@@ -1,79 +1,257 @@
 package burp.listeners;
 
 import interactsh.InteractshClient;
+import interactsh.PayloadRegistry;
+import interactsh.transport.PollTransport;
 
 import java.awt.Toolkit;
 import java.awt.datatransfer.StringSelection;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Consumer;
 import javax.swing.SwingUtilities;
 
+/**
+ * Owns the sessions of the current project, one for every configured server. The sessions are
+ * saved in the project when they are registered and resumed on the next load, until they are
+ * closed for good with {@link #close()}.
+ *
+ * All sessions are polled into the same table. New payloads come from the healthy server with the
+ * best recent round trip and error rate, so when a server goes down new payloads fail over to the
+ * others while the payloads already handed out keep being polled. A server that cannot be
+ * registered with is retried with a growing delay.
+ */
 public class InteractshListener {
-	private final ExecutorService executor;
-	private volatile InteractshClient client;
-	private final Semaphore pollSignal = new Semaphore(0);
+	private static final long RETRY_MILLIS = 30_000;
+	private static final long MAX_RETRY_MILLIS = 300_000;
+	private static final Comparator<InteractshClient> BEST_FIRST =
+			Comparator.comparing((InteractshClient c) -> !c.getHealth().isHealthy())
+					.thenComparingDouble(c -> c.getHealth().getScore());
 
+	private final PollScheduler scheduler;
+	private final SessionPool sessionPool;
+	private Consumer<String> onReadyCallback;
+	private final Map<PollTransport.Target, InteractshClient> clients = new LinkedHashMap<>();
+	// Servers whose session is still being registered
+	private final Set<PollTransport.Target> starting = new HashSet<>();
+	private boolean closed;
+	private boolean suspended;
 
 	public InteractshListener(Consumer<String> onReadyCallback) {
-		this.executor = Executors.newSingleThreadExecutor();
-		this.executor.submit(() -> pollingLoop(onReadyCallback));
+		this(burp.BurpExtender.scheduler, burp.BurpExtender.sessionPool, onReadyCallback);
 	}
 
-	private void pollingLoop(Consumer<String> onReadyCallback) {
-		this.client = new InteractshClient();
+	public InteractshListener(PollScheduler scheduler, SessionPool sessionPool,
+			Consumer<String> onReadyCallback) {
+		this.scheduler = scheduler;
+		this.sessionPool = sessionPool;
+		this.onReadyCallback = onReadyCallback;
+		this.scheduler.execute(this::startAll);
+	}
+
+	private void startAll() {
+		Map<PollTransport.Target, InteractshClient> resumed = resumeSavedSessions();
+		List<PollTransport.Target> servers = burp.gui.Config.getServers();
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			starting.addAll(servers);
+		}
+		for (PollTransport.Target target : servers) {
+			InteractshClient resumedClient = resumed.get(target);
+			scheduler.execute(() -> start(target, resumedClient, RETRY_MILLIS));
+		}
+	}
+
+	private void start(PollTransport.Target target, InteractshClient resumed, long retryMillis) {
+		synchronized (this) {
+			if (closed || !starting.contains(target)) {
+				return;
+			}
+		}
 		try {
-			if (client.register()) {
-				if (onReadyCallback != null) {
-					String newUrl = client.getInteractDomain();
-					SwingUtilities.invokeLater(() -> onReadyCallback.accept(newUrl));
+			InteractshClient newClient = resumed;
+			boolean registered = resumed != null;
+			if (newClient == null) {
+				newClient = sessionPool.takeSession(target);
+				registered = newClient != null;
+				if (!registered) {
+					newClient = new InteractshClient(sessionPool.takeKeyPair(), target);
 				}
-				while (!Thread.currentThread().isInterrupted()) {
-					client.poll();
-					try {
-						long pollTime = burp.BurpExtender.getPollTime();
-						pollSignal.tryAcquire(pollTime, TimeUnit.SECONDS);
-					} catch (InterruptedException e) {
-						Thread.currentThread().interrupt();
+				burp.BurpExtender.api.logging().logToOutput("Session pool: " + sessionPool);
+			}
+			if (!registered && !newClient.register()) {
+				burp.BurpExtender.api.logging()
+						.logToError("Unable to register interactsh client with " + target.host()
+								+ ", retrying in " + retryMillis / 1000 + " seconds");
+				long nextRetryMillis = Math.min(retryMillis * 2, MAX_RETRY_MILLIS);
+				scheduler.schedule(() -> start(target, null, nextRetryMillis), retryMillis);
+				return;
+			}
+			synchronized (this) {
+				if (closed || !starting.remove(target)) {
+					// Only a resumed session is saved and can be picked up again after a suspend
+					if (!suspended || newClient != resumed) {
+						newClient.deregister();
 					}
+					return;
+				}
+				clients.put(target, newClient);
+				saveSessions();
+				scheduler.addSession(newClient);
+				if (resumed != null) {
+					scheduler.pollNow(newClient);
 				}
-			} else {
-				burp.BurpExtender.api.logging().logToError("Unable to register interactsh client");
 			}
+			// The spare is registered with the first server, which is known to accept sessions now
+			if (target.equals(burp.gui.Config.getServers().get(0))) {
+				sessionPool.keepSpareSession();
+			}
+			notifyReady();
 		} catch (Exception ex) {
 			burp.BurpExtender.api.logging().logToError(ex.getMessage());
-		} finally {
-			if (client != null && client.isRegistered()) {
-				client.deregister();
+		}
+	}
+
+	// Reports the first session that is ready, so a new payload can be copied right away
+	private void notifyReady() {
+		Consumer<String> callback;
+		synchronized (this) {
+			callback = onReadyCallback;
+			onReadyCallback = null;
+		}
+		InteractshClient best = getBestClient();
+		if (callback != null && best != null) {
+			String newUrl = best.getInteractDomain();
+			SwingUtilities.invokeLater(() -> callback.accept(newUrl));
+		}
+	}
+
+	private static Map<PollTransport.Target, InteractshClient> resumeSavedSessions() {
+		Map<PollTransport.Target, InteractshClient> resumed = new HashMap<>();
+		// Sessions of servers that are no longer configured are dropped on the next save
+		for (String savedSession : burp.gui.Config.getSavedSessions()) {
+			InteractshClient client = InteractshClient.resume(savedSession);
+			if (client != null && resumed.putIfAbsent(client.getTarget(), client) == null) {
+				burp.BurpExtender.api.logging().logToOutput(
+						"Resuming session with correlation ID: " + client.getCorrelationId());
 			}
 		}
+		return resumed;
+	}
+
+	private void saveSessions() {
+		List<String> sessions = new ArrayList<>();
+		for (InteractshClient client : clients.values()) {
+			sessions.add(client.toSessionJson());
+		}
+		burp.gui.Config.setSavedSessions(sessions);
 	}
 
+	/**
+	 * Brings the sessions in line with the configured servers: sessions of servers that are still
+	 * configured are kept, those of removed servers are deregistered and new servers get a new
+	 * session.
+	 */
+	public void updateServers() {
+		List<PollTransport.Target> servers = burp.gui.Config.getServers();
+		List<InteractshClient> removed = new ArrayList<>();
+		List<PollTransport.Target> added = new ArrayList<>();
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			starting.retainAll(servers);
+			for (Iterator<InteractshClient> it = clients.values().iterator(); it.hasNext();) {
+				InteractshClient client = it.next();
+				if (!servers.contains(client.getTarget())) {
+					it.remove();
+					if (scheduler.removeSession(client)) {
+						removed.add(client);
+					}
+				}
+			}
+			for (PollTransport.Target target : servers) {
+				if (!clients.containsKey(target) && starting.add(target)) {
+					added.add(target);
+				}
+			}
+			saveSessions();
+		}
+		for (InteractshClient client : removed) {
+			scheduler.execute(client::deregister);
+		}
+		for (PollTransport.Target target : added) {
+			scheduler.execute(() -> start(target, null, RETRY_MILLIS));
+		}
+	}
+
+	// Deregisters the sessions and forgets them, so the next listener starts new ones
 	public void close() {
-		executor.shutdownNow();
-		try {
-			if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
-				burp.BurpExtender.api.logging()
-						.logToError("Polling task did not terminate in time.");
+		List<InteractshClient> removed = new ArrayList<>();
+		synchronized (this) {
+			closed = true;
+			starting.clear();
+			burp.gui.Config.setSavedSessions(List.of());
+			for (InteractshClient client : clients.values()) {
+				if (scheduler.removeSession(client)) {
+					removed.add(client);
+				}
 			}
-		} catch (InterruptedException e) {
-			Thread.currentThread().interrupt();
+			clients.clear();
+		}
+		for (InteractshClient client : removed) {
+			scheduler.execute(client::deregister);
+		}
+	}
+
+	// Stops polling but leaves the sessions registered and saved, to be resumed on the next load
+	public synchronized void suspend() {
+		closed = true;
+		suspended = true;
+		starting.clear();
+		// Saving may have been turned on since the sessions were registered
+		saveSessions();
+		for (InteractshClient client : clients.values()) {
+			scheduler.removeSession(client);
 		}
 	}
 
-	public void pollNowAll() {
-		InteractshClient currentClient = this.client;
-		if (currentClient != null && currentClient.isRegistered()) {
-			pollSignal.release();
+	public synchronized void pollNowAll() {
+		for (InteractshClient client : clients.values()) {
+			if (client.isRegistered()) {
+				scheduler.pollNow(client);
+			}
 		}
 	}
 
+	// The session new payloads are taken from, or null while none is registered
+	public synchronized InteractshClient getBestClient() {
+		return clients.values().stream().min(BEST_FIRST).orElse(null);
+	}
+
+	public synchronized List<InteractshClient> getClients() {
+		return List.copyOf(clients.values());
+	}
+
 	public void copyCurrentUrlToClipboard() {
-		InteractshClient currentClient = this.client;
+		copyCurrentUrlToClipboard(null);
+	}
+
+	// Copies a new payload whose origin is recorded in the payload registry, unless it is null
+	public void copyCurrentUrlToClipboard(PayloadRegistry.Origin origin) {
+		InteractshClient currentClient = getBestClient();
 		if (currentClient != null) {
-			String interactDomain = currentClient.getInteractDomain();
+			String interactDomain = origin == null ? currentClient.getInteractDomain()
+					: currentClient.getInteractDomain(burp.BurpExtender.payloads.mint(origin));
 			burp.BurpExtender.api.logging()
 					.logToOutput("New domain in this session is: " + interactDomain);
 			StringSelection stringSelection = new StringSelection(interactDomain);
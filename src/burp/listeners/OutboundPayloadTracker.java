@@ -0,0 +1,147 @@
+package burp.listeners;
+
+import burp.api.montoya.core.Annotations;
+import burp.api.montoya.http.handler.HttpHandler;
+import burp.api.montoya.http.handler.HttpRequestToBeSent;
+import burp.api.montoya.http.handler.HttpResponseReceived;
+import burp.api.montoya.http.handler.RequestToBeSentAction;
+import burp.api.montoya.http.handler.ResponseReceivedAction;
+import interactsh.CorrelationIdMatcher;
+import interactsh.PayloadRegistry;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Scans every request Burp sends for the domains of the active sessions. The payload found in a
+ * request is recorded in the {@link PayloadRegistry} with the tool, URL and parameter it was sent
+ * in, unless its origin is already known, and the request is annotated with it.
+ *
+ * The scan is a single pass of a {@link CorrelationIdMatcher}, which is only rebuilt when the
+ * scheduler's sessions change, so requests without a payload cost one table lookup per byte.
+ */
+public class OutboundPayloadTracker implements HttpHandler {
+	private static final int ID_LENGTH = PayloadRegistry.CORRELATION_ID_LENGTH;
+	private static final CorrelationIdMatcher.MatchConsumer IGNORE = (id, end) -> {
+	};
+
+	private final PollScheduler scheduler;
+	private final PayloadRegistry payloads;
+	private volatile Snapshot snapshot = new Snapshot(-1, CorrelationIdMatcher.EMPTY);
+
+	private final LongAdder requestsScanned = new LongAdder();
+	private final LongAdder payloadsFound = new LongAdder();
+	private final LongAdder scanNanos = new LongAdder();
+
+	public OutboundPayloadTracker(PollScheduler scheduler, PayloadRegistry payloads) {
+		this.scheduler = scheduler;
+		this.payloads = payloads;
+	}
+
+	@Override
+	public RequestToBeSentAction handleHttpRequestToBeSent(HttpRequestToBeSent request) {
+		CorrelationIdMatcher matcher = getMatcher();
+		if (matcher.isEmpty()) {
+			return RequestToBeSentAction.continueWith(request);
+		}
+
+		long start = System.nanoTime();
+		byte[] bytes = request.toByteArray().getBytes();
+		int matches = matcher.find(bytes, IGNORE);
+		requestsScanned.increment();
+		scanNanos.add(System.nanoTime() - start);
+		if (matches == 0) {
+			return RequestToBeSentAction.continueWith(request);
+		}
+
+		List<Integer> ends = new ArrayList<>(matches);
+		matcher.find(bytes, (id, end) -> ends.add(end));
+		List<String> found = new ArrayList<>();
+		for (int end : ends) {
+			String nonce = readNonce(bytes, end);
+			// Polls for our own sessions contain the ID without a nonce
+			if (nonce == null) {
+				continue;
+			}
+			found.add(new String(bytes, end - ID_LENGTH, ID_LENGTH + nonce.length(),
+					StandardCharsets.US_ASCII));
+			payloads.register(nonce, getOrigin(request, end - ID_LENGTH));
+		}
+		if (found.isEmpty()) {
+			return RequestToBeSentAction.continueWith(request);
+		}
+		payloadsFound.add(found.size());
+		Annotations annotations = request.annotations();
+		String note = "Interactsh payload: " + String.join(", ", found);
+		if (annotations.hasNotes()) {
+			note = annotations.notes() + "; " + note;
+		}
+		return RequestToBeSentAction.continueWith(request, annotations.withNotes(note));
+	}
+
+	@Override
+	public ResponseReceivedAction handleHttpResponseReceived(HttpResponseReceived response) {
+		return ResponseReceivedAction.continueWith(response);
+	}
+
+	public long getRequestsScanned() {
+		return requestsScanned.sum();
+	}
+
+	public long getPayloadsFound() {
+		return payloadsFound.sum();
+	}
+
+	public long getAverageScanNanos() {
+		long requests = requestsScanned.sum();
+		return requests == 0 ? 0 : scanNanos.sum() / requests;
+	}
+
+	private CorrelationIdMatcher getMatcher() {
+		Snapshot current = snapshot;
+		int version = scheduler.getSessionVersion();
+		if (current.version() != version) {
+			current = new Snapshot(version,
+					CorrelationIdMatcher.build(scheduler.getCorrelationIds()));
+			snapshot = current;
+		}
+		return current.matcher();
+	}
+
+	// The nonce is the letters right after the correlation ID, or null if there are none
+	private static String readNonce(byte[] bytes, int offset) {
+		if (offset + PayloadRegistry.NONCE_LENGTH > bytes.length) {
+			return null;
+		}
+		char[] nonce = new char[PayloadRegistry.NONCE_LENGTH];
+		for (int i = 0; i < nonce.length; i++) {
+			char c = Character.toLowerCase((char) bytes[offset + i]);
+			if (c < 'a' || c > 'z') {
+				return null;
+			}
+			nonce[i] = c;
+		}
+		// A longer run of letters is not one of our payloads
+		int after = offset + nonce.length;
+		if (after < bytes.length && Character.isLetterOrDigit((char) bytes[after])) {
+			return null;
+		}
+		return new String(nonce);
+	}
+
+	private static PayloadRegistry.Origin getOrigin(HttpRequestToBeSent request, int offset) {
+		String target = null;
+		try {
+			target = request.url();
+		} catch (Exception ex) {
+			// Requests without a service have no URL
+		}
+		return new PayloadRegistry.Origin(request.toolSource().toolType().toolName(), target,
+				burp.BurpExtender.getParameterAt(request, offset), System.currentTimeMillis());
+	}
+
+	private record Snapshot(int version, CorrelationIdMatcher matcher) {
+	}
+}
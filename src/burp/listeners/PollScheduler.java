@@ -0,0 +1,200 @@
+package burp.listeners;
+
+import interactsh.InteractshClient;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Polls any number of registered {@link InteractshClient} sessions on a small shared thread pool.
+ *
+ * Every session keeps its own deadline. After a poll completes, the next one is scheduled one poll
+ * interval later, shifted by a random jitter so that sessions added together drift apart instead
+ * of hitting the server in bursts. A session is never polled by two threads at once.
+ *
+ * The interval itself comes from {@link AdaptivePollInterval}, so with adaptive polling enabled
+ * busy sessions are polled more often than idle ones.
+ */
+public class PollScheduler {
+	private static final int MAX_THREADS = 4;
+	private static final double JITTER_RATIO = 0.1;
+	private static final long INITIAL_JITTER_MS = 1000;
+
+	private final ScheduledThreadPoolExecutor executor;
+	private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+	// Changes whenever a session is added or removed
+	private final AtomicInteger sessionVersion = new AtomicInteger();
+
+	public PollScheduler() {
+		int threads =
+				Math.max(1, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors()));
+		this.executor = new ScheduledThreadPoolExecutor(threads, new PollerThreadFactory());
+		this.executor.setRemoveOnCancelPolicy(true);
+		this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+	}
+
+	public void addSession(InteractshClient client) {
+		Session session = new Session(client);
+		if (sessions.putIfAbsent(client.getCorrelationId(), session) == null) {
+			sessionVersion.incrementAndGet();
+			session.schedule(ThreadLocalRandom.current().nextLong(INITIAL_JITTER_MS));
+		}
+	}
+
+	// A poll that is already running is allowed to finish, but nothing further is scheduled
+	public boolean removeSession(InteractshClient client) {
+		Session session = sessions.remove(client.getCorrelationId());
+		if (session == null) {
+			return false;
+		}
+		sessionVersion.incrementAndGet();
+		session.cancel();
+		return true;
+	}
+
+	public Collection<InteractshClient> getClients() {
+		return sessions.values().stream().map(s -> s.client).toList();
+	}
+
+	public Set<String> getCorrelationIds() {
+		return Set.copyOf(sessions.keySet());
+	}
+
+	public int getSessionVersion() {
+		return sessionVersion.get();
+	}
+
+	public int getSessionCount() {
+		return sessions.size();
+	}
+
+	public void pollNow(InteractshClient client) {
+		Session session = sessions.get(client.getCorrelationId());
+		if (session != null) {
+			session.pollNow();
+		}
+	}
+
+	public void pollNowAll() {
+		sessions.values().forEach(Session::pollNow);
+	}
+
+	public void execute(Runnable task) {
+		executor.execute(task);
+	}
+
+	// Runs a task later on the polling threads, unless the scheduler is shut down by then
+	public void schedule(Runnable task, long delayMillis) {
+		try {
+			executor.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException ex) {
+			// Shut down in the meantime
+		}
+	}
+
+	public void shutdown() {
+		sessions.values().forEach(Session::cancel);
+		sessions.clear();
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+				burp.BurpExtender.api.logging()
+						.logToError("Polling tasks did not terminate in time.");
+				executor.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static long withJitter(long interval) {
+		long jitter = (long) (interval * JITTER_RATIO);
+		if (jitter == 0) {
+			return interval;
+		}
+		return Math.max(0, interval + ThreadLocalRandom.current().nextLong(-jitter, jitter + 1));
+	}
+
+	private class Session implements Runnable {
+		private final InteractshClient client;
+		private final AdaptivePollInterval interval = new AdaptivePollInterval();
+		private ScheduledFuture<?> future;
+		private boolean running;
+		private boolean pollRequested;
+		private boolean cancelled;
+
+		Session(InteractshClient client) {
+			this.client = client;
+		}
+
+		synchronized void schedule(long delayMillis) {
+			if (cancelled || executor.isShutdown()) {
+				return;
+			}
+			future = executor.schedule(this, delayMillis, TimeUnit.MILLISECONDS);
+		}
+
+		synchronized void pollNow() {
+			if (running) {
+				pollRequested = true;
+			} else if (future == null || future.cancel(false)) {
+				schedule(0);
+			}
+		}
+
+		synchronized void cancel() {
+			cancelled = true;
+			if (future != null) {
+				future.cancel(false);
+			}
+		}
+
+		@Override
+		public void run() {
+			synchronized (this) {
+				if (cancelled) {
+					return;
+				}
+				if (running) {
+					pollRequested = true;
+					return;
+				}
+				running = true;
+			}
+			int interactions = 0;
+			try {
+				interactions = client.poll();
+			} catch (Exception ex) {
+				burp.BurpExtender.api.logging().logToError(ex.getMessage());
+			} finally {
+				synchronized (this) {
+					running = false;
+					boolean immediate = pollRequested;
+					pollRequested = false;
+					schedule(immediate ? 0 : withJitter(interval.next(interactions)));
+				}
+			}
+		}
+	}
+
+	private static class PollerThreadFactory implements ThreadFactory {
+		private final AtomicInteger counter = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "interactsh-poller-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
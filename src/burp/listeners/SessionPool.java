@@ -0,0 +1,162 @@
+package burp.listeners;
+
+import interactsh.InteractshClient;
+import interactsh.transport.PollTransport;
+
+import java.security.KeyPair;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prepares new sessions in the background, so that regenerating the session does not wait for
+ * RSA key generation or the /register round trip.
+ *
+ * The pool keeps a few spare key pairs and, once {@link #keepSpareSession} was called, one spare
+ * session already registered with the first configured server. Taking either triggers a refill
+ * on a single background thread. A spare session registered for a server that is no longer
+ * configured is deregistered instead of used.
+ *
+ * The listener asks for the spare session once its own session with the first server is ready,
+ * so nothing is registered while the server is unreachable or still being configured, yet the
+ * first regenerate already finds one.
+ */
+public class SessionPool {
+	private static final int KEY_POOL_SIZE = 2;
+
+	private final BlockingQueue<KeyPair> keyPairs = new ArrayBlockingQueue<>(KEY_POOL_SIZE);
+	private final ExecutorService refiller = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "interactsh-session-pool");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final AtomicBoolean refillScheduled = new AtomicBoolean();
+	private InteractshClient spareSession;
+	private boolean spareSessionWanted;
+	private boolean shutdown;
+
+	private final AtomicLong keyHits = new AtomicLong();
+	private final AtomicLong keyMisses = new AtomicLong();
+	private final AtomicLong sessionHits = new AtomicLong();
+	private final AtomicLong sessionMisses = new AtomicLong();
+
+	public SessionPool() {
+		refill();
+	}
+
+	// Keeps a registered session ready from now on, for the next time a session is regenerated
+	public void keepSpareSession() {
+		synchronized (this) {
+			if (spareSessionWanted) {
+				return;
+			}
+			spareSessionWanted = true;
+		}
+		refill();
+	}
+
+	// Returns a registered session for the given server, or null if none is ready
+	public InteractshClient takeSession(PollTransport.Target target) {
+		InteractshClient session;
+		synchronized (this) {
+			session = spareSession;
+			if (session != null && session.usesCurrentConfig()
+					&& !session.getTarget().equals(target)) {
+				// Kept for the server it was registered with
+				session = null;
+			} else {
+				spareSession = null;
+			}
+		}
+		refill();
+		if (session != null && !session.usesCurrentConfig()) {
+			refiller.execute(session::deregister);
+			session = null;
+		}
+		(session == null ? sessionMisses : sessionHits).incrementAndGet();
+		return session;
+	}
+
+	// Returns a spare key pair, or generates one on the calling thread if none is ready
+	public KeyPair takeKeyPair() {
+		KeyPair kp = keyPairs.poll();
+		refill();
+		if (kp == null) {
+			keyMisses.incrementAndGet();
+			return InteractshClient.generateKeys();
+		}
+		keyHits.incrementAndGet();
+		return kp;
+	}
+
+	public void shutdown() {
+		InteractshClient session;
+		synchronized (this) {
+			shutdown = true;
+			session = spareSession;
+			spareSession = null;
+		}
+		refiller.shutdownNow();
+		try {
+			refiller.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (session != null) {
+			session.deregister();
+		}
+	}
+
+	private void refill() {
+		if (refillScheduled.compareAndSet(false, true)) {
+			try {
+				refiller.execute(this::fill);
+			} catch (RuntimeException ex) {
+				// Rejected after shutdown
+			}
+		}
+	}
+
+	private void fill() {
+		refillScheduled.set(false);
+		try {
+			while (keyPairs.remainingCapacity() > 0 && !Thread.currentThread().isInterrupted()) {
+				keyPairs.offer(InteractshClient.generateKeys());
+			}
+			synchronized (this) {
+				if (spareSession != null || !spareSessionWanted || shutdown) {
+					return;
+				}
+			}
+			KeyPair kp = keyPairs.poll();
+			InteractshClient session = new InteractshClient(
+					kp == null ? InteractshClient.generateKeys() : kp);
+			if (!session.register()) {
+				return;
+			}
+			synchronized (this) {
+				if (spareSession == null && !shutdown) {
+					spareSession = session;
+					session = null;
+				}
+			}
+			if (session != null) {
+				session.deregister();
+			}
+			refill();
+		} catch (Exception ex) {
+			burp.BurpExtender.api.logging()
+					.logToError("Unable to prepare a spare session: " + ex.getMessage());
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "sessions " + sessionHits + " ready / " + sessionMisses + " not ready, key pairs "
+				+ keyHits + " ready / " + keyMisses + " generated on demand";
+	}
+}
@@ -0,0 +1,158 @@
+package interactsh;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Finds any of a set of correlation IDs in raw bytes in a single pass, using an Aho-Corasick
+ * automaton compiled into a flat transition table.
+ *
+ * Correlation IDs only use the characters 0-9 and a-v, which are matched case-insensitively, so
+ * every byte maps to one of 33 classes with the last one for everything else. A table row holds
+ * the transitions of one state, and each entry is the row offset of the next state with the sign
+ * bit set when an ID ends there, so the scan loop is one lookup per byte. All IDs have the same
+ * length, so no ID can end inside another and each state reports at most one.
+ *
+ * Instances are immutable; a new matcher is built whenever the set of IDs changes.
+ */
+public final class CorrelationIdMatcher {
+	public static final CorrelationIdMatcher EMPTY = build(List.of());
+
+	private static final int OTHER = 32;
+	private static final int ROW_LENGTH = OTHER + 1;
+	private static final int ROW_MASK = Integer.MAX_VALUE;
+	private static final byte[] CLASS = new byte[256];
+
+	static {
+		Arrays.fill(CLASS, (byte) OTHER);
+		for (int i = 0; i < 10; i++) {
+			CLASS['0' + i] = (byte) i;
+		}
+		for (int i = 0; i < 22; i++) {
+			CLASS['a' + i] = (byte) (10 + i);
+			CLASS['A' + i] = (byte) (10 + i);
+		}
+	}
+
+	private final int[] table;
+	private final String[] output;
+
+	private CorrelationIdMatcher(int[] table, String[] output) {
+		this.table = table;
+		this.output = output;
+	}
+
+	public static CorrelationIdMatcher build(Collection<String> ids) {
+		List<int[]> transitions = new ArrayList<>();
+		List<String> outputs = new ArrayList<>();
+		transitions.add(newRow());
+		outputs.add(null);
+
+		for (String id : ids) {
+			if (!isValid(id)) {
+				continue;
+			}
+			int state = 0;
+			for (int i = 0; i < id.length(); i++) {
+				int c = CLASS[id.charAt(i)];
+				if (transitions.get(state)[c] < 0) {
+					transitions.get(state)[c] = transitions.size();
+					transitions.add(newRow());
+					outputs.add(null);
+				}
+				state = transitions.get(state)[c];
+			}
+			outputs.set(state, id);
+		}
+
+		// Breadth first, so the failure state of every state is complete before it is needed
+		int states = transitions.size();
+		int[] failure = new int[states];
+		Queue<Integer> queue = new ArrayDeque<>();
+		for (int c = 0; c <= OTHER; c++) {
+			int next = transitions.get(0)[c];
+			if (next < 0) {
+				transitions.get(0)[c] = 0;
+			} else {
+				queue.add(next);
+			}
+		}
+		while (!queue.isEmpty()) {
+			int state = queue.poll();
+			int[] row = transitions.get(state);
+			for (int c = 0; c <= OTHER; c++) {
+				int next = row[c];
+				if (next < 0) {
+					row[c] = transitions.get(failure[state])[c];
+				} else {
+					failure[next] = transitions.get(failure[state])[c];
+					if (outputs.get(next) == null) {
+						outputs.set(next, outputs.get(failure[next]));
+					}
+					queue.add(next);
+				}
+			}
+		}
+
+		int[] table = new int[states * ROW_LENGTH];
+		for (int state = 0; state < states; state++) {
+			int[] row = transitions.get(state);
+			for (int c = 0; c <= OTHER; c++) {
+				int next = row[c];
+				table[state * ROW_LENGTH + c] =
+						next * ROW_LENGTH | (outputs.get(next) == null ? 0 : ~ROW_MASK);
+			}
+		}
+		return new CorrelationIdMatcher(table, outputs.toArray(String[]::new));
+	}
+
+	public boolean isEmpty() {
+		return table.length == ROW_LENGTH;
+	}
+
+	/**
+	 * Reports every occurrence of an ID in the data, with the offset just past its end, and
+	 * returns the number of occurrences.
+	 */
+	public int find(byte[] data, MatchConsumer consumer) {
+		int[] table = this.table;
+		int matches = 0;
+		int row = 0;
+		for (int i = 0; i < data.length; i++) {
+			int next = table[row + CLASS[data[i] & 0xff]];
+			row = next & ROW_MASK;
+			if (next < 0) {
+				matches++;
+				consumer.match(output[row / ROW_LENGTH], i + 1);
+			}
+		}
+		return matches;
+	}
+
+	private static boolean isValid(String id) {
+		if (id == null || id.isEmpty()) {
+			return false;
+		}
+		for (int i = 0; i < id.length(); i++) {
+			char c = id.charAt(i);
+			if (c > 0xff || CLASS[c] == OTHER) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int[] newRow() {
+		int[] row = new int[OTHER + 1];
+		Arrays.fill(row, -1);
+		return row;
+	}
+
+	public interface MatchConsumer {
+		void match(String id, int end);
+	}
+}
@@ -0,0 +1,120 @@
+package interactsh;
+
+import interactsh.metrics.Metrics;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Decrypts batches of encrypted events, and parses batches of decrypted events into entries.
+ * Batches of at least {@link #PARALLEL_THRESHOLD} events are split across a shared fork-join
+ * pool; smaller ones are handled on the calling thread. Either way, result {@code i} belongs to
+ * event {@code i}.
+ */
+public class EventBatchDecoder {
+	public static final int PARALLEL_THRESHOLD = 128;
+	private static final int LEAF_SIZE = 32;
+
+	private static final ForkJoinPool POOL = new ForkJoinPool(
+			Math.max(1, Runtime.getRuntime().availableProcessors() - 1), pool -> {
+				ForkJoinWorkerThread thread =
+						ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+				thread.setName("interactsh-decoder-" + thread.getPoolIndex());
+				thread.setDaemon(true);
+				return thread;
+			}, null, false);
+
+	public static Result<byte[]> decrypt(List<String> events, SecretKeySpec key) {
+		return run(events.size(), i -> {
+			long start = System.nanoTime();
+			byte[] event = EventDecryptor.decryptToBytes(events.get(i), key);
+			Metrics.EVENT_DECRYPT.recordSince(start);
+			return event;
+		});
+	}
+
+	public static Result<InteractshEntry> parse(List<byte[]> events) {
+		return run(events.size(), i -> {
+			long start = System.nanoTime();
+			InteractshEntry entry = new InteractshEntry(events.get(i));
+			Metrics.ENTRY_PARSE.recordSince(start);
+			return entry;
+		});
+	}
+
+	private static <T> Result<T> run(int size, Step<T> step) {
+		Result<T> result = new Result<>(size);
+		if (size < PARALLEL_THRESHOLD) {
+			runRange(step, result, 0, size);
+		} else {
+			POOL.invoke(new StepTask<>(step, result, 0, size));
+		}
+		return result;
+	}
+
+	private static <T> void runRange(Step<T> step, Result<T> result, int from, int to) {
+		for (int i = from; i < to; i++) {
+			try {
+				result.values[i] = step.apply(i);
+			} catch (Exception ex) {
+				result.errors[i] = ex;
+			}
+		}
+	}
+
+	private interface Step<T> {
+		T apply(int index) throws Exception;
+	}
+
+	public static class Result<T> {
+		private final Object[] values;
+		private final Exception[] errors;
+
+		Result(int size) {
+			this.values = new Object[size];
+			this.errors = new Exception[size];
+		}
+
+		public int size() {
+			return values.length;
+		}
+
+		// null when the event could not be handled, see getError
+		@SuppressWarnings("unchecked")
+		public T get(int index) {
+			return (T) values[index];
+		}
+
+		public Exception getError(int index) {
+			return errors[index];
+		}
+	}
+
+	private static class StepTask<T> extends RecursiveAction {
+		private final Step<T> step;
+		private final Result<T> result;
+		private final int from;
+		private final int to;
+
+		StepTask(Step<T> step, Result<T> result, int from, int to) {
+			this.step = step;
+			this.result = result;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= LEAF_SIZE) {
+				runRange(step, result, from, to);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new StepTask<>(step, result, from, middle),
+					new StepTask<>(step, result, middle, to));
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package interactsh;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Decrypts the AES-CFB encrypted interactions returned by /poll.
+ *
+ * Every thread keeps its own {@link Cipher} and scratch buffers. An event is Base64-decoded
+ * straight into the scratch buffer and decrypted from there by offset, so the only allocation per
+ * event is the result itself.
+ */
+public final class EventDecryptor {
+	private static final int IV_LENGTH = 16;
+	private static final int INITIAL_BUFFER = 8 * 1024;
+	// Buffers grown past this size for an unusually large event are not kept around afterwards
+	private static final int MAX_RETAINED_BUFFER = 1024 * 1024;
+
+	private static final byte[] BASE64 = new byte[128];
+
+	static {
+		Arrays.fill(BASE64, (byte) -1);
+		String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+		for (int i = 0; i < alphabet.length(); i++) {
+			BASE64[alphabet.charAt(i)] = (byte) i;
+		}
+	}
+
+	private static final ThreadLocal<EventDecryptor> LOCAL =
+			ThreadLocal.withInitial(EventDecryptor::new);
+
+	private final Cipher cipher;
+	private byte[] decoded = new byte[INITIAL_BUFFER];
+	private byte[] plain = new byte[INITIAL_BUFFER];
+
+	private EventDecryptor() {
+		try {
+			this.cipher = Cipher.getInstance("AES/CFB/NoPadding");
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("AES/CFB/NoPadding is not available", e);
+		}
+	}
+
+	public static String decrypt(CharSequence base64, SecretKeySpec key)
+			throws GeneralSecurityException {
+		EventDecryptor decryptor = LOCAL.get();
+		int length = decryptor.decryptToBuffer(base64, key);
+		String result = new String(decryptor.plain, 0, length, StandardCharsets.UTF_8);
+		decryptor.releaseLargeBuffers();
+		return result;
+	}
+
+	public static byte[] decryptToBytes(CharSequence base64, SecretKeySpec key)
+			throws GeneralSecurityException {
+		EventDecryptor decryptor = LOCAL.get();
+		int length = decryptor.decryptToBuffer(base64, key);
+		byte[] result = Arrays.copyOf(decryptor.plain, length);
+		decryptor.releaseLargeBuffers();
+		return result;
+	}
+
+	private int decryptToBuffer(CharSequence base64, SecretKeySpec key)
+			throws GeneralSecurityException {
+		int maxDecoded = base64.length() / 4 * 3 + 3;
+		if (decoded.length < maxDecoded) {
+			decoded = new byte[maxDecoded];
+		}
+		int length = decodeBase64(base64, decoded);
+		// The last byte is the trailing newline the server appends to every event
+		int cipherTextLength = length - IV_LENGTH - 1;
+		if (cipherTextLength < 0) {
+			throw new IllegalArgumentException("Encrypted interaction is too short");
+		}
+		if (plain.length < cipherTextLength) {
+			plain = new byte[cipherTextLength];
+		}
+
+		cipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(decoded, 0, IV_LENGTH));
+		return cipher.doFinal(decoded, IV_LENGTH, cipherTextLength, plain, 0);
+	}
+
+	private void releaseLargeBuffers() {
+		if (decoded.length > MAX_RETAINED_BUFFER) {
+			decoded = new byte[INITIAL_BUFFER];
+		}
+		if (plain.length > MAX_RETAINED_BUFFER) {
+			plain = new byte[INITIAL_BUFFER];
+		}
+	}
+
+	// Strict like Base64.getDecoder(): padding only at the end, and no stray bits in the last byte
+	private static int decodeBase64(CharSequence src, byte[] dst) {
+		int length = src.length();
+		int padding = 0;
+		while (padding < 2 && length > 0 && src.charAt(length - 1) == '=') {
+			length--;
+			padding++;
+		}
+		if (length % 4 == 1 || padding > 0 && (length + padding) % 4 != 0) {
+			throw new IllegalArgumentException("Invalid base64 length " + src.length());
+		}
+		int bits = 0;
+		int accumulator = 0;
+		int out = 0;
+		for (int i = 0; i < length; i++) {
+			char c = src.charAt(i);
+			int value = c < BASE64.length ? BASE64[c] : -1;
+			if (value < 0) {
+				throw new IllegalArgumentException("Illegal base64 character " + (int) c);
+			}
+			accumulator = (accumulator << 6) | value;
+			bits += 6;
+			if (bits >= 8) {
+				bits -= 8;
+				dst[out++] = (byte) (accumulator >> bits);
+				accumulator &= (1 << bits) - 1;
+			}
+		}
+		if (accumulator != 0) {
+			throw new IllegalArgumentException("Invalid base64 ending");
+		}
+		return out;
+	}
+}
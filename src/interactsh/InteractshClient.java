@@ -1,30 +1,52 @@
 package interactsh;
 
+import java.io.IOException;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.security.SecureRandom;
 import java.security.spec.MGF1ParameterSpec;
-import java.util.Arrays;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
 import java.util.Base64;
-import java.util.Random;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.crypto.AEADBadTagException;
 import javax.crypto.Cipher;
-import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.OAEPParameterSpec;
 import javax.crypto.spec.PSource;
 import javax.crypto.spec.SecretKeySpec;
-import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 import com.github.shamil.Xid;
-import burp.api.montoya.http.HttpService;
-import burp.api.montoya.http.message.requests.HttpRequest;
-import burp.api.montoya.http.message.responses.HttpResponse;
+import interactsh.metrics.Metrics;
+import interactsh.pipeline.InteractionPipeline;
+import interactsh.transport.PollTransport;
+import interactsh.transport.Transports;
 import lombok.Getter;
 
 public class InteractshClient {
+	private static final int SEAL_IV_LENGTH = 12;
+	private static final int SEAL_TAG_BITS = 128;
+	private static final SecureRandom RANDOM = new SecureRandom();
+	// Events a poll response sends before the AES key of a new session are held back up to this
+	private static final long MAX_PENDING_CHARS = 64L << 20;
+	// A session the server has lost is registered again at most once per backoff, which doubles
+	// while the server keeps losing it and starts over once a whole backoff passes without that
+	private static final long MIN_REREGISTER_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(30);
+	private static final long MAX_REREGISTER_BACKOFF_NANOS = TimeUnit.MINUTES.toNanos(30);
+
 	private PrivateKey privateKey;
 	private PublicKey publicKey;
 
@@ -39,25 +61,152 @@ public class InteractshClient {
 	@Getter
 	private boolean registered;
 	private String authorization;
+	@Getter
+	private final PollTransport.Target target;
+	@Getter
+	private final ServerHealth health = new ServerHealth();
+
+	// The server wraps the same AES key for the whole session, so RSA only runs when it changes
+	private String wrappedAesKey;
+	private SecretKeySpec aesKey;
+	private final AtomicLong keyCacheHits = new AtomicLong();
+	private final AtomicLong keyCacheMisses = new AtomicLong();
+	private long nextReregisterNanos;
+	private long reregisterBackoffNanos = MIN_REREGISTER_BACKOFF_NANOS;
 
 	public InteractshClient() {
-		this.correlationId = Xid.get().toString();
-		this.secretKey = UUID.randomUUID().toString();
+		this(generateKeys());
+	}
+
+	// Starts a new session on the first configured server with a key pair generated ahead of time
+	public InteractshClient(KeyPair kp) {
+		this(kp, burp.gui.Config.getServers().get(0));
+	}
+
+	public InteractshClient(KeyPair kp, PollTransport.Target target) {
+		this(Xid.get().toString(), UUID.randomUUID().toString(), kp, target);
+	}
+
+	private InteractshClient(String correlationId, String secretKey, KeyPair kp,
+			PollTransport.Target target) {
+		this.correlationId = correlationId;
+		this.secretKey = secretKey;
 
-		KeyPair kp = generateKeys();
 		this.publicKey = kp.getPublic();
 		this.privateKey = kp.getPrivate();
 		this.pubKeyBase64 =
 				Base64.getEncoder().encodeToString(getPublicKey().getBytes(StandardCharsets.UTF_8));
 
-		this.host = burp.gui.Config.getHost();
-		this.scheme = burp.gui.Config.getScheme();
-		this.authorization = burp.gui.Config.getAuth();
+		this.target = target;
+		this.host = target.host();
+		this.port = target.port();
+		this.scheme = target.tls();
+		this.authorization = target.authorization();
+	}
+
+	// Whether the session belongs to one of the servers that are configured now
+	public boolean usesCurrentConfig() {
+		return burp.gui.Config.getServers().contains(target);
+	}
+
+	/**
+	 * Recreates a session saved with {@link #toSessionJson()} without registering it again, so
+	 * that payloads handed out before a reload keep working. Returns null when the session cannot
+	 * be read, was saved by another Burp user, or belongs to a server that is no longer
+	 * configured.
+	 */
+	public static InteractshClient resume(String sessionJson) {
 		try {
-			this.port = Integer.parseInt(burp.gui.Config.getPort());
-		} catch (NumberFormatException ne) {
-			this.port = 443;
+			JSONObject session = new JSONObject(sessionJson);
+			// Sessions saved before the secrets were sealed hold them in the clear
+			JSONObject secrets = session.has("sealed")
+					? new JSONObject(unseal(session.getString("sealed")))
+					: session;
+			KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+			Base64.Decoder decoder = Base64.getDecoder();
+			KeyPair kp = new KeyPair(
+					keyFactory.generatePublic(new X509EncodedKeySpec(
+							decoder.decode(session.getString("public-key")))),
+					keyFactory.generatePrivate(new PKCS8EncodedKeySpec(
+							decoder.decode(secrets.getString("private-key")))));
+			PollTransport.Target target = new PollTransport.Target(session.getString("host"),
+					session.getInt("port"), session.getBoolean("tls"), burp.gui.Config.getAuth());
+			if (!burp.gui.Config.getServers().contains(target)) {
+				return null;
+			}
+			InteractshClient client = new InteractshClient(session.getString("correlation-id"),
+					secrets.getString("secret-key"), kp, target);
+			client.registered = true;
+			if (secrets.has("wrapped-aes-key")) {
+				client.wrappedAesKey = secrets.getString("wrapped-aes-key");
+				client.aesKey =
+						new SecretKeySpec(decoder.decode(secrets.getString("aes-key")), "AES");
+			}
+			return client;
+		} catch (AEADBadTagException ex) {
+			burp.BurpExtender.api.logging().logToError(
+					"Unable to resume saved session, it was saved by another Burp user");
+			return null;
+		} catch (JSONException | GeneralSecurityException | IllegalArgumentException ex) {
+			burp.BurpExtender.api.logging()
+					.logToError("Unable to resume saved session: " + ex.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * The session as saved in the project. The private key and the secret, which would let anyone
+	 * read the session's interactions, are sealed with the key from
+	 * {@link burp.gui.Config#getSessionKey()}.
+	 */
+	public String toSessionJson() {
+		Base64.Encoder encoder = Base64.getEncoder();
+		JSONObject secrets = new JSONObject();
+		secrets.put("secret-key", secretKey);
+		secrets.put("private-key", encoder.encodeToString(privateKey.getEncoded()));
+		// With the AES key at hand, the first poll after a resume needs no events held back
+		synchronized (this) {
+			if (aesKey != null) {
+				secrets.put("wrapped-aes-key", wrappedAesKey);
+				secrets.put("aes-key", encoder.encodeToString(aesKey.getEncoded()));
+			}
+		}
+		JSONObject session = new JSONObject();
+		session.put("correlation-id", correlationId);
+		session.put("public-key", encoder.encodeToString(publicKey.getEncoded()));
+		session.put("sealed", seal(secrets.toString()));
+		session.put("host", host);
+		session.put("port", port);
+		session.put("tls", scheme);
+		return session.toString();
+	}
+
+	// AES-GCM, with the IV in front of the ciphertext
+	private static String seal(String text) {
+		try {
+			byte[] iv = new byte[SEAL_IV_LENGTH];
+			RANDOM.nextBytes(iv);
+			Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+			cipher.init(Cipher.ENCRYPT_MODE, burp.gui.Config.getSessionKey(),
+					new GCMParameterSpec(SEAL_TAG_BITS, iv));
+			byte[] sealed = cipher.doFinal(text.getBytes(StandardCharsets.UTF_8));
+			return Base64.getEncoder().encodeToString(
+					ByteBuffer.allocate(iv.length + sealed.length).put(iv).put(sealed).array());
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Unable to seal session", e);
+		}
+	}
+
+	private static String unseal(String text) throws GeneralSecurityException {
+		byte[] sealed = Base64.getDecoder().decode(text);
+		if (sealed.length < SEAL_IV_LENGTH) {
+			throw new GeneralSecurityException("Sealed session is too short");
 		}
+		Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+		cipher.init(Cipher.DECRYPT_MODE, burp.gui.Config.getSessionKey(),
+				new GCMParameterSpec(SEAL_TAG_BITS, sealed, 0, SEAL_IV_LENGTH));
+		byte[] plain = cipher.doFinal(sealed, SEAL_IV_LENGTH, sealed.length - SEAL_IV_LENGTH);
+		return new String(plain, StandardCharsets.UTF_8);
 	}
 
 	public boolean register() {
@@ -69,38 +218,22 @@ public class InteractshClient {
 			registerData.put("secret-key", secretKey);
 			registerData.put("correlation-id", correlationId);
 
-			String requestBody = registerData.toString();
-			StringBuilder requestBuilder = new StringBuilder();
-
-			requestBuilder.append("POST /register HTTP/1.1\r\n").append("Host: ").append(host)
-					.append("\r\n").append("User-Agent: Interact.sh Client\r\n")
-					.append("Content-Type: application/json\r\n").append("Content-Length: ")
-					.append(requestBody.length()).append("\r\n");
-
-			if (authorization != null && !authorization.isEmpty()) {
-				requestBuilder.append("Authorization: ").append(authorization).append("\r\n");
-			}
-
-			requestBuilder.append("Connection: close\r\n\r\n").append(requestBody);
-
-			String request = requestBuilder.toString();
-
-			HttpService httpService = HttpService.httpService(host, port, scheme);
-			HttpRequest httpRequest = HttpRequest.httpRequest(httpService, request);
-			HttpResponse resp = burp.BurpExtender.api.http().sendRequest(httpRequest).response();
-
-			if (resp.statusCode() == 200) {
-				this.registered = true;
-				burp.BurpExtender.api.logging().logToOutput("Session registration was successful.");
-				return true;
-			} else {
-				burp.BurpExtender.api.logging().logToError(
-						"Registration was unsuccessful. Status Code: " + resp.statusCode());
-				burp.BurpExtender.api.logging()
-						.logToError("Error message: \n\n" + resp.bodyToString());
+			try (PollTransport.Response resp =
+					send("POST", "/register", registerData.toString())) {
+				if (resp.statusCode() == 200) {
+					this.registered = true;
+					burp.BurpExtender.api.logging()
+							.logToOutput("Session registration was successful.");
+					return true;
+				} else {
+					burp.BurpExtender.api.logging().logToError(
+							"Registration was unsuccessful. Status Code: " + resp.statusCode());
+					burp.BurpExtender.api.logging()
+							.logToError("Error message: \n\n" + resp.bodyToString());
+				}
 			}
 		} catch (Exception ex) {
-			if (ex.getMessage() != null && ex.getMessage().contains("UnknownHostException")) {
+			if (isUnknownHost(ex)) {
 				burp.BurpExtender.api.logging().logToError(
 						"Registration failed - the host '" + host + "' could not be resolved.");
 			} else {
@@ -110,85 +243,84 @@ public class InteractshClient {
 		return false;
 	}
 
-	public boolean poll() {
-		StringBuilder requestBuilder = new StringBuilder();
-
-		requestBuilder.append("GET /poll?id=").append(correlationId).append("&secret=")
-				.append(secretKey).append(" HTTP/1.1\r\n").append("Host: ").append(host)
-				.append("\r\n").append("User-Agent: Interact.sh Client\r\n");
-
-		if (authorization != null && !authorization.isEmpty()) {
-			requestBuilder.append("Authorization: ").append(authorization).append("\r\n");
+	// Returns the number of interactions received, or -1 when the server rejected the poll
+	public int poll() throws IOException {
+		long start = System.nanoTime();
+		boolean failed = true;
+		Metrics.POLLS.increment();
+		try (PollTransport.Response resp =
+				send("GET", "/poll?id=" + correlationId + "&secret=" + secretKey, null)) {
+			if (resp.statusCode() != 200) {
+				burp.BurpExtender.api.logging()
+						.logToError("Session with correlation ID " + correlationId
+								+ " was unsuccessful - status returned: " + resp.statusCode());
+				// The server no longer knows the session, e.g. after it was restarted or evicted
+				// it while Burp was closed. Registering the same keys and ID keeps payloads valid.
+				if (resp.statusCode() == 400 && takeReregisterSlot() && register()) {
+					burp.BurpExtender.api.logging().logToOutput("Session with correlation ID "
+							+ correlationId + " recovered, the server had lost it");
+					failed = false;
+					return 0;
+				}
+				return -1;
+			}
+			resetReregisterBackoff();
+
+			PollHandler handler = new PollHandler();
+			try {
+				PollResponseReader.read(resp.body(), handler);
+				handler.finish();
+				failed = false;
+			} catch (Exception ex) {
+				if (isUnknownHost(ex)) {
+					burp.BurpExtender.api.logging().logToError(
+							"Polling failed - the host '" + host + "' could not be resolved.");
+				} else {
+					burp.BurpExtender.api.logging().logToError(ex.getMessage());
+				}
+			}
+			return handler.interactions;
+		} finally {
+			long nanos = System.nanoTime() - start;
+			Metrics.POLL_ROUND_TRIP.record(nanos);
+			if (failed) {
+				Metrics.POLL_FAILURES.increment();
+			}
+			health.record(nanos, failed);
 		}
+	}
 
-		requestBuilder.append("Connection: close\r\n\r\n");
-
-		String request = requestBuilder.toString();
-
-		HttpService httpService = HttpService.httpService(host, port, scheme);
-		HttpRequest httpRequest = HttpRequest.httpRequest(httpService, request);
-		HttpResponse resp = burp.BurpExtender.api.http().sendRequest(httpRequest).response();
-		if (resp.statusCode() != 200) {
-			burp.BurpExtender.api.logging().logToError("Session with correlation ID "
-					+ correlationId + " was unsuccessful - status returned: " + resp.statusCode());
+	// Whether the session may be registered again now, starting the next backoff if so
+	private synchronized boolean takeReregisterSlot() {
+		long now = System.nanoTime();
+		if (nextReregisterNanos != 0 && now - nextReregisterNanos < 0) {
 			return false;
 		}
+		nextReregisterNanos = now + reregisterBackoffNanos;
+		reregisterBackoffNanos = Math.min(MAX_REREGISTER_BACKOFF_NANOS, reregisterBackoffNanos * 2);
+		return true;
+	}
 
-		String responseBody = resp.bodyToString();
-		try {
-			JSONObject jsonObject = new JSONObject(responseBody);
-			String aesKey = jsonObject.getString("aes_key");
-			String key = this.decryptAesKey(aesKey);
-
-			if (!jsonObject.isNull("data")) {
-				JSONArray data = jsonObject.getJSONArray("data");
-				for (int i = 0; i < data.length(); i++) {
-					String decryptedData = decryptData(data.getString(i), key);
-
-					InteractshEntry entry = new InteractshEntry(decryptedData);
-					burp.BurpExtender.addToTable(entry);
-				}
-			}
-		} catch (Exception ex) {
-			if (ex.getMessage() != null && ex.getMessage().contains("UnknownHostException")) {
-				burp.BurpExtender.api.logging().logToError(
-						"Polling failed - the host '" + host + "' could not be resolved.");
-			} else {
-				burp.BurpExtender.api.logging().logToError(ex.getMessage());
-			}
+	// Called on every successful poll, and only starts over once the current backoff has passed
+	private synchronized void resetReregisterBackoff() {
+		if (nextReregisterNanos != 0 && System.nanoTime() - nextReregisterNanos >= 0) {
+			nextReregisterNanos = 0;
+			reregisterBackoffNanos = MIN_REREGISTER_BACKOFF_NANOS;
 		}
-		return true;
 	}
 
 	public void deregister() {
-		burp.BurpExtender.api.logging()
-				.logToOutput("Deregistering correlation with ID: " + correlationId);
+		burp.BurpExtender.api.logging().logToOutput("Deregistering correlation with ID: "
+				+ correlationId + " (AES key cache: " + getKeyCacheHits() + " hits, "
+				+ getKeyCacheMisses() + " misses)");
 		try {
 			JSONObject deregisterData = new JSONObject();
 			deregisterData.put("correlation-id", correlationId);
 			deregisterData.put("secret-key", secretKey);
-			String requestBody = deregisterData.toString();
-
-			StringBuilder requestBuilder = new StringBuilder();
-
-			requestBuilder.append("POST /deregister HTTP/1.1\r\n").append("Host: ").append(host)
-					.append("\r\nUser-Agent: Interact.sh Client\r\n")
-					.append("Content-Type: application/json\r\n").append("Content-Length: ")
-					.append(requestBody.length()).append("\r\n");
-
-			if (authorization != null && !authorization.isEmpty()) {
-				requestBuilder.append("Authorization: ").append(authorization).append("\r\n");
-			}
 
-			requestBuilder.append("Connection: close\r\n\r\n").append(requestBody);
-
-			String request = requestBuilder.toString();
-
-			HttpService httpService = HttpService.httpService(host, port, scheme);
-			HttpRequest httpRequest = HttpRequest.httpRequest(httpService, request);
-			burp.BurpExtender.api.http().sendRequest(httpRequest).response();
+			send("POST", "/deregister", deregisterData.toString()).close();
 		} catch (Exception ex) {
-			if (ex.getMessage() != null && ex.getMessage().contains("UnknownHostException")) {
+			if (isUnknownHost(ex)) {
 				burp.BurpExtender.api.logging().logToError(
 						"Deregister failed - the host '" + host + "' could not be resolved.");
 			} else {
@@ -197,24 +329,33 @@ public class InteractshClient {
 		}
 	}
 
+	private PollTransport.Response send(String method, String path, String body)
+			throws IOException {
+		PollTransport transport = Transports.forName(burp.gui.Config.getTransport());
+		return transport.send(target, method, path, body);
+	}
+
+	private static boolean isUnknownHost(Exception ex) {
+		if (ex instanceof UnknownHostException || ex.getCause() instanceof UnknownHostException) {
+			return true;
+		}
+		return ex.getMessage() != null && ex.getMessage().contains("UnknownHostException");
+	}
+
+	// Returns a domain with a random nonce that is not tracked in the payload registry
 	public String getInteractDomain() {
+		return getInteractDomain(PayloadRegistry.randomNonce());
+	}
+
+	// Returns the domain for a nonce issued by PayloadRegistry.mint
+	public String getInteractDomain(String nonce) {
 		if (correlationId == null || correlationId.isEmpty()) {
 			return "";
-		} else {
-			String fullDomain = correlationId;
-
-			// Fix the string up to 33 characters
-			Random random = new Random();
-			while (fullDomain.length() < 33) {
-				fullDomain += (char) (random.nextInt(26) + 'a');
-			}
-
-			fullDomain += "." + host;
-			return fullDomain;
 		}
+		return correlationId + nonce + "." + host;
 	}
 
-	private KeyPair generateKeys() {
+	public static KeyPair generateKeys() {
 		try {
 			KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
 			kpg.initialize(2048);
@@ -236,31 +377,133 @@ public class InteractshClient {
 		return pubKey;
 	}
 
-	private String decryptAesKey(String encrypted) throws Exception {
+	public long getKeyCacheHits() {
+		return keyCacheHits.get();
+	}
+
+	public long getKeyCacheMisses() {
+		return keyCacheMisses.get();
+	}
+
+	private synchronized SecretKeySpec getCachedAesKey() {
+		return aesKey;
+	}
+
+	private synchronized SecretKeySpec getAesKey(String wrapped) throws Exception {
+		if (aesKey != null && wrapped.equals(wrappedAesKey)) {
+			keyCacheHits.incrementAndGet();
+			return aesKey;
+		}
+		keyCacheMisses.incrementAndGet();
+		long start = System.nanoTime();
+		SecretKeySpec key = new SecretKeySpec(decryptAesKey(wrapped, privateKey), "AES");
+		Metrics.AES_KEY_DECRYPT.recordSince(start);
+		this.wrappedAesKey = wrapped;
+		this.aesKey = key;
+		return key;
+	}
+
+	// Unwraps the AES key the server encrypted for the public key of a session
+	public static byte[] decryptAesKey(String encrypted, PrivateKey privateKey)
+			throws GeneralSecurityException {
 		byte[] cipherTextArray = Base64.getDecoder().decode(encrypted);
 
 		Cipher cipher = Cipher.getInstance("RSA/ECB/OAEPPadding");
 		OAEPParameterSpec oaepParams = new OAEPParameterSpec("SHA-256", "MGF1",
 				new MGF1ParameterSpec("SHA-256"), PSource.PSpecified.DEFAULT);
 		cipher.init(Cipher.DECRYPT_MODE, privateKey, oaepParams);
-		byte[] decrypted = cipher.doFinal(cipherTextArray);
-
-		return new String(decrypted);
+		return cipher.doFinal(cipherTextArray);
 	}
 
-	private static String decryptData(String input, String key) throws Exception {
-		byte[] cipherTextArray = Base64.getDecoder().decode(input);
-		byte[] iv = Arrays.copyOfRange(cipherTextArray, 0, 16);
-		byte[] cipherText = Arrays.copyOfRange(cipherTextArray, 16, cipherTextArray.length - 1);
+	/**
+	 * The fetch stage of the {@link InteractionPipeline}: collects events from the reader into
+	 * chunks and submits them in server order. The server may send {@code data} before
+	 * {@code aes_key}, so until the key of this response has been read, events are submitted with
+	 * the key cached from the previous poll. Those that do not decode with it are submitted again
+	 * once the actual key is known. Without any cached key, which is only the case on the first
+	 * poll of a new session, events are held back up to {@link #MAX_PENDING_CHARS}.
+	 */
+	private class PollHandler implements PollResponseReader.Handler {
+		private final InteractionPipeline pipeline = burp.BurpExtender.getPipeline();
+		private SecretKeySpec key;
+		private List<String> chunk = new ArrayList<>();
+		private InteractionPipeline.Speculation speculation;
+		// Events read before any key was known at all
+		private final List<String> pending = new ArrayList<>();
+		private long pendingChars;
+		private int dropped;
+		private int interactions;
+
+		@Override
+		public void aesKey(String wrappedKey) throws Exception {
+			flushChunk();
+			this.key = getAesKey(wrappedKey);
+			if (speculation != null) {
+				submit(speculation.resolve(key));
+				speculation = null;
+			}
+			submit(pending);
+			pending.clear();
+			pendingChars = 0;
+		}
+
+		@Override
+		public void event(String encryptedEvent) {
+			interactions++;
+			if (key == null && speculation == null) {
+				SecretKeySpec cachedKey = getCachedAesKey();
+				if (cachedKey == null) {
+					if (pendingChars + encryptedEvent.length() > MAX_PENDING_CHARS) {
+						dropped++;
+						return;
+					}
+					pending.add(encryptedEvent);
+					pendingChars += encryptedEvent.length();
+					return;
+				}
+				speculation = pipeline.speculate(cachedKey);
+			}
+			chunk.add(encryptedEvent);
+			if (chunk.size() >= InteractionPipeline.CHUNK_SIZE) {
+				flushChunk();
+			}
+		}
 
-		IvParameterSpec ivSpec = new IvParameterSpec(iv);
+		void finish() {
+			flushChunk();
+			if (speculation != null) {
+				speculation.resolve(null);
+			}
+			if (!pending.isEmpty()) {
+				burp.BurpExtender.api.logging().logToError("Poll response for " + correlationId
+						+ " had " + pending.size() + " interactions but no AES key");
+			}
+			if (dropped > 0) {
+				burp.BurpExtender.api.logging().logToError("Dropped " + dropped
+						+ " interactions of " + correlationId + " that came before the AES key "
+						+ "in a poll response larger than " + (MAX_PENDING_CHARS >> 20) + " MB");
+			}
+		}
 
-		SecretKeySpec skeySpec = new SecretKeySpec(key.getBytes(), "AES");
-		Cipher cipher = Cipher.getInstance("AES/CFB/NoPadding");
-		cipher.init(Cipher.DECRYPT_MODE, skeySpec, ivSpec);
-		byte[] decrypted = cipher.doFinal(cipherText);
+		private void flushChunk() {
+			if (chunk.isEmpty()) {
+				return;
+			}
+			if (key == null) {
+				pipeline.submit(chunk, speculation);
+			} else {
+				pipeline.submit(chunk, key);
+			}
+			chunk = new ArrayList<>();
+		}
 
-		return new String(decrypted);
+		private void submit(List<String> events) {
+			int size = InteractionPipeline.CHUNK_SIZE;
+			for (int i = 0; i < events.size(); i += size) {
+				pipeline.submit(List.copyOf(events.subList(i, Math.min(events.size(), i + size))),
+						key);
+			}
+		}
 	}
 
 	private String[] splitStringEveryN(String s, int interval) {
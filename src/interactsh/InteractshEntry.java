@@ -1,13 +1,15 @@
 package interactsh;
 
 import org.json.*;
+import interactsh.store.SearchIndex;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 
 import burp.api.montoya.http.message.requests.HttpRequest;
 import burp.api.montoya.http.message.responses.HttpResponse;
-import lombok.Getter;
-import lombok.Setter;
 
 // {"protocol":"dns","unique-id":"c4jup534f3acspvifdr0cru63feyyyyyn","full-id":"c4jup534f3acspvifdr0cru63feyyyyyn","q-type":"A","raw-request":";;
 // opcode: QUERY, status: NOERROR, id: 52297\n;; flags: cd; QUERY: 1, ANSWER: 0, AUTHORITY: 0,
@@ -59,40 +61,160 @@ import lombok.Setter;
 // Us!\u003c/span\u003e\u003c/a\u003e\u003c/p\u003eHello
 // World\r\n\r\n\r\n--b1_EqDzWEjs9wsJui8L4dcucWKaDQWeApjhHmbfkHMab0--\r\n\r\n","smtp-from":"noreply@anonymousemail.me","remote-address":"167.86.101.24","timestamp":"2021-08-28T19:19:09.654451626Z"}
 public class InteractshEntry {
-	public String protocol;
-	public String uid;
-	public String details;
-	public String rawRequest;
-	public String rawResponse;
-	public String address;
-	public Instant timestamp;
+	public final String protocol;
+	public final String uid;
+	public final String address;
+	public final Instant timestamp;
 
-	@Getter
-	@Setter
-	private boolean read = false;
-
-	public final HttpRequest httpRequest;
-	public final HttpResponse httpResponse;
+	// The decrypted event as sent by the server; everything else is derived from it on demand
+	private final byte[] event;
+	private volatile Details details;
+	// Words for the search index, only held until the entry has been added to the log
+	private String[] searchWords;
 
 	public InteractshEntry(String event) throws JSONException {
-		JSONObject jsonObject = new JSONObject(event);
-		this.protocol = jsonObject.getString("protocol");
+		this(event.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public InteractshEntry(byte[] event) throws JSONException {
+		this(event, true);
+	}
+
+	private InteractshEntry(byte[] event, boolean tokenize) throws JSONException {
+		this.event = event;
+		JSONObject jsonObject = parse(event);
+		this.protocol = jsonObject.getString("protocol").intern();
 		this.uid = jsonObject.getString("unique-id");
 		this.address = jsonObject.getString("remote-address");
 		this.timestamp = Instant.parse(jsonObject.getString("timestamp"));
-		this.rawRequest = jsonObject.optString("raw-request", "");
-		this.rawResponse = jsonObject.optString("raw-response", "");
-		if (this.protocol.equals("http")) {
-			this.httpRequest = HttpRequest.httpRequest(rawRequest);
-			this.httpResponse = HttpResponse.httpResponse(rawResponse);
-		} else {
-			this.httpRequest = null;
-			this.httpResponse = null;
+		// The details are only built when the row is selected, so events they cannot be built
+		// from are rejected here
+		checkDetails(protocol, jsonObject);
+		if (tokenize) {
+			this.searchWords = SearchIndex.tokenize(jsonObject.optString("raw-request", null),
+					jsonObject.optString("raw-response", null));
+		}
+	}
+
+	// Rebuilds an entry that has already been indexed, e.g. when it is paged back in from disk
+	public static InteractshEntry restore(byte[] event) throws JSONException {
+		return new InteractshEntry(event, false);
+	}
+
+	public String[] takeSearchWords() {
+		String[] words = searchWords;
+		searchWords = null;
+		return words;
+	}
+
+	// The text that searches match against, parsed without keeping the details around
+	public String getSearchableText() {
+		Details cached = details;
+		if (cached != null) {
+			return cached.rawRequest + "\n" + cached.rawResponse;
+		}
+		JSONObject jsonObject = parse(event);
+		return jsonObject.optString("raw-request", "") + "\n"
+				+ jsonObject.optString("raw-response", "");
+	}
+
+	public byte[] getEvent() {
+		return event;
+	}
+
+	public String getDetails() {
+		return details().text;
+	}
+
+	public String getRawRequest() {
+		return details().rawRequest;
+	}
+
+	public String getRawResponse() {
+		return details().rawResponse;
+	}
+
+	public HttpRequest getHttpRequest() {
+		return details().httpRequest;
+	}
+
+	public HttpResponse getHttpResponse() {
+		return details().httpResponse;
+	}
+
+	// Rough heap cost of the details once they have been built, or 0 before
+	public long getDetailsSize() {
+		Details cached = details;
+		return cached == null ? 0 : cached.size;
+	}
+
+	private Details details() {
+		Details result = details;
+		if (result == null) {
+			result = new Details(parse(event));
+			details = result;
+		}
+		return result;
+	}
+
+	private static JSONObject parse(byte[] event) throws JSONException {
+		return new JSONObject(new JSONTokener(
+				new InputStreamReader(new ByteArrayInputStream(event), StandardCharsets.UTF_8)));
+	}
+
+	private class Details {
+		final String text;
+		final String rawRequest;
+		final String rawResponse;
+		final HttpRequest httpRequest;
+		final HttpResponse httpResponse;
+		final long size;
+
+		Details(JSONObject jsonObject) {
+			this.rawRequest = jsonObject.optString("raw-request", "");
+			this.rawResponse = jsonObject.optString("raw-response", "");
+			if (protocol.equals("http")) {
+				this.httpRequest = HttpRequest.httpRequest(rawRequest);
+				this.httpResponse = HttpResponse.httpResponse(rawResponse);
+			} else {
+				this.httpRequest = null;
+				this.httpResponse = null;
+			}
+			this.text = processDetails(protocol, jsonObject);
+			// The strings, plus the copy of the raw messages Burp's request and response hold
+			long rawLength = rawRequest.length() + rawResponse.length();
+			this.size = text.length() + rawLength + (httpRequest == null ? 0 : rawLength);
+		}
+	}
+
+	// Fails where processDetails would, without building the text
+	private static void checkDetails(String protocol, JSONObject obj) throws JSONException {
+		switch (protocol) {
+			case "dns":
+				obj.getString("q-type");
+				obj.getString("raw-request");
+				obj.getString("raw-response");
+				break;
+			case "http":
+				obj.getString("raw-request");
+				obj.getString("raw-response");
+				break;
+			case "ftp":
+			case "ldap":
+			case "responder":
+			case "smb":
+				obj.getString("raw-request");
+				break;
+			case "smtp":
+				obj.getString("smtp-from");
+				obj.getString("raw-request");
+				break;
+			default:
+				break;
 		}
-		this.details = processDetails(protocol, jsonObject);
 	}
 
-	private String processDetails(String protocol, JSONObject obj) throws JSONException {
+	private static String processDetails(String protocol, JSONObject obj) throws JSONException {
 		String result;
 		switch (protocol) {
 			case "dns":
@@ -0,0 +1,433 @@
+package interactsh;
+
+import interactsh.store.SegmentFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers where every payload that was handed out was used, so that an interaction can be traced
+ * back to the request that triggered it.
+ *
+ * A payload is the 20 character correlation ID followed by a 13 letter nonce, which fits in a long
+ * as a base-26 number. Issued nonces sit in a ring in the order they were issued, next to their
+ * origin, and an open-addressing hash table maps each nonce to its place in the ring. Every
+ * payload lives for the same time, so the oldest one is always at the head of the ring and expiry
+ * never has to search. Past {@link #MAX_CAPACITY} payloads, the oldest are dropped early.
+ *
+ * When given a file, every payload is appended to it and read back on construction, so origins
+ * outlive the session they were issued in. The file is written by a thread of its own in batches,
+ * so {@link #register} and {@link #mint}, which run on Burp's request threads and the EDT, never
+ * wait for the disk. Should the writer fall a full queue behind, further payloads are only kept in
+ * memory.
+ */
+public class PayloadRegistry implements AutoCloseable {
+	public static final int CORRELATION_ID_LENGTH = 20;
+	public static final int NONCE_LENGTH = 13;
+	// 26^13
+	private static final long NONCE_RANGE = 2_481_152_873_203_736_576L;
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final int MAX_CAPACITY = 1 << 22;
+	// Long enough to cover a whole engagement, like the default eviction time of the server
+	public static final long DEFAULT_TTL_MILLIS = 30L * 24 * 60 * 60 * 1000;
+	private static final int STORE_QUEUE_CAPACITY = 1 << 16;
+	private static final int STORE_BATCH_SIZE = 4096;
+	private static final long STORE_POLL_MILLIS = 100;
+
+	private final long ttlMillis;
+	private final SegmentFile file;
+	// Payloads waiting to be written to the file by the store thread
+	private final BlockingQueue<StoredPayload> storeQueue =
+			new ArrayBlockingQueue<>(STORE_QUEUE_CAPACITY);
+	// Held while writing to or truncating the file, never together with the registry's lock
+	private final Object storeLock = new Object();
+	private final Thread storeThread;
+	private volatile boolean closed;
+	private boolean storeQueueFull;
+
+	// Payloads with sequence numbers head to tail - 1 are live, at index sequence & (capacity - 1)
+	private long[] nonces = new long[INITIAL_CAPACITY];
+	private long[] issued = new long[INITIAL_CAPACITY];
+	private Origin[] origins = new Origin[INITIAL_CAPACITY];
+	private long head;
+	private long tail;
+
+	// Linear probing at a load factor of at most 1/2. Keys are nonce + 1, so that 0 marks a free
+	// slot, and values are sequence numbers
+	private long[] keys = new long[INITIAL_CAPACITY * 2];
+	private long[] sequences = new long[INITIAL_CAPACITY * 2];
+
+	public PayloadRegistry(long ttlMillis, Path path) {
+		this.ttlMillis = ttlMillis;
+		SegmentFile segmentFile = null;
+		if (path != null) {
+			try {
+				Files.createDirectories(path.getParent());
+				segmentFile = new SegmentFile(path, false);
+				load(segmentFile);
+			} catch (IOException e) {
+				burp.BurpExtender.api.logging().logToError(
+						"Unable to read issued payloads, origins are kept in memory: "
+								+ e.getMessage());
+				closeQuietly(segmentFile);
+				segmentFile = null;
+			}
+		}
+		this.file = segmentFile;
+		if (segmentFile == null) {
+			this.storeThread = null;
+		} else {
+			this.storeThread = new Thread(this::writeStored, "interactsh-payload-store");
+			this.storeThread.setDaemon(true);
+			this.storeThread.start();
+		}
+	}
+
+	public static String randomNonce() {
+		return encode(ThreadLocalRandom.current().nextLong(NONCE_RANGE));
+	}
+
+	// Issues a new nonce for a payload used in the given place
+	public synchronized String mint(Origin origin) {
+		expire(System.currentTimeMillis());
+		long nonce;
+		do {
+			nonce = ThreadLocalRandom.current().nextLong(NONCE_RANGE);
+		} while (find(nonce) >= 0);
+		store(nonce, origin);
+		return encode(nonce);
+	}
+
+	/**
+	 * Records the origin of a nonce that was not minted here, such as one seen in an outgoing
+	 * request. Returns false if the nonce is invalid or already known.
+	 */
+	public synchronized boolean register(String nonce, Origin origin) {
+		if (nonce.length() != NONCE_LENGTH) {
+			return false;
+		}
+		long value = decode(nonce, 0);
+		if (value < 0 || find(value) >= 0) {
+			return false;
+		}
+		expire(System.currentTimeMillis());
+		store(value, origin);
+		return true;
+	}
+
+	// Returns where the payload of an interaction's unique ID was used, or null if it is unknown
+	public synchronized Origin resolve(String uniqueId) {
+		if (uniqueId == null || uniqueId.length() != CORRELATION_ID_LENGTH + NONCE_LENGTH) {
+			return null;
+		}
+		long nonce = decode(uniqueId, CORRELATION_ID_LENGTH);
+		int slot = nonce < 0 ? -1 : find(nonce);
+		if (slot < 0) {
+			return null;
+		}
+		Origin origin = origins[index(sequences[slot])];
+		if (origin.issuedMillis() + ttlMillis <= System.currentTimeMillis()) {
+			return null;
+		}
+		return origin;
+	}
+
+	public synchronized int size() {
+		return (int) (tail - head);
+	}
+
+	// Deletes the stored payloads, while those in memory stay known for the rest of the session
+	public void clearStore() throws IOException {
+		if (file != null) {
+			synchronized (storeLock) {
+				storeQueue.clear();
+				file.truncate();
+			}
+		}
+	}
+
+	// Writes the payloads that are still queued and closes the file
+	@Override
+	public void close() throws IOException {
+		if (file == null || closed) {
+			return;
+		}
+		closed = true;
+		try {
+			storeThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		List<StoredPayload> remaining = new ArrayList<>();
+		storeQueue.drainTo(remaining);
+		appendStored(remaining);
+		file.close();
+	}
+
+	private void store(long nonce, Origin origin) {
+		add(nonce, origin);
+		if (file == null || closed) {
+			return;
+		}
+		if (storeQueue.offer(new StoredPayload(nonce, origin))) {
+			storeQueueFull = false;
+		} else if (!storeQueueFull) {
+			storeQueueFull = true;
+			burp.BurpExtender.api.logging().logToError(
+					"Payloads are issued faster than they can be stored, some are only kept in "
+							+ "memory");
+		}
+	}
+
+	private void writeStored() {
+		List<StoredPayload> batch = new ArrayList<>();
+		while (!closed) {
+			StoredPayload first;
+			try {
+				first = storeQueue.poll(STORE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				return;
+			}
+			if (first == null) {
+				continue;
+			}
+			batch.add(first);
+			storeQueue.drainTo(batch, STORE_BATCH_SIZE - 1);
+			appendStored(batch);
+			batch.clear();
+		}
+	}
+
+	private void appendStored(List<StoredPayload> batch) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		List<byte[]> records = new ArrayList<>(batch.size());
+		for (StoredPayload payload : batch) {
+			records.add(toRecord(payload.nonce(), payload.origin()));
+		}
+		synchronized (storeLock) {
+			try {
+				file.appendAll(records);
+			} catch (IOException e) {
+				burp.BurpExtender.api.logging()
+						.logToError("Unable to store issued payloads: " + e.getMessage());
+			}
+		}
+	}
+
+	private static void closeQuietly(SegmentFile segmentFile) {
+		if (segmentFile != null) {
+			try {
+				segmentFile.close();
+			} catch (IOException e) {
+				// Already failed, nothing else to do
+			}
+		}
+	}
+
+	private void add(long nonce, Origin origin) {
+		if (tail - head == nonces.length) {
+			if (nonces.length < MAX_CAPACITY) {
+				grow();
+			} else {
+				removeHead();
+			}
+		}
+		int index = index(tail);
+		nonces[index] = nonce;
+		issued[index] = origin.issuedMillis();
+		origins[index] = origin;
+		insert(nonce, tail++);
+	}
+
+	private void expire(long now) {
+		while (head < tail && issued[index(head)] + ttlMillis <= now) {
+			removeHead();
+		}
+	}
+
+	private void removeHead() {
+		int index = index(head++);
+		delete(find(nonces[index]));
+		origins[index] = null;
+	}
+
+	private void grow() {
+		int capacity = nonces.length * 2;
+		long[] newNonces = new long[capacity];
+		long[] newIssued = new long[capacity];
+		Origin[] newOrigins = new Origin[capacity];
+		for (long sequence = head; sequence < tail; sequence++) {
+			int from = index(sequence);
+			int to = (int) (sequence & (capacity - 1));
+			newNonces[to] = nonces[from];
+			newIssued[to] = issued[from];
+			newOrigins[to] = origins[from];
+		}
+		nonces = newNonces;
+		issued = newIssued;
+		origins = newOrigins;
+
+		keys = new long[capacity * 2];
+		sequences = new long[capacity * 2];
+		for (long sequence = head; sequence < tail; sequence++) {
+			insert(nonces[index(sequence)], sequence);
+		}
+	}
+
+	private int index(long sequence) {
+		return (int) (sequence & (nonces.length - 1));
+	}
+
+	private int find(long nonce) {
+		long key = nonce + 1;
+		int mask = keys.length - 1;
+		for (int slot = hash(key) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	private void insert(long nonce, long sequence) {
+		int mask = keys.length - 1;
+		int slot = hash(nonce + 1) & mask;
+		while (keys[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = nonce + 1;
+		sequences[slot] = sequence;
+	}
+
+	// Backward shift deletion, so that lookups never need tombstones
+	private void delete(int slot) {
+		int mask = keys.length - 1;
+		int hole = slot;
+		for (int i = (slot + 1) & mask; keys[i] != 0; i = (i + 1) & mask) {
+			int home = hash(keys[i]) & mask;
+			if (((i - home) & mask) >= ((i - hole) & mask)) {
+				keys[hole] = keys[i];
+				sequences[hole] = sequences[i];
+				hole = i;
+			}
+		}
+		keys[hole] = 0;
+	}
+
+	private static int hash(long key) {
+		key *= 0x9E3779B97F4A7C15L;
+		return (int) (key ^ (key >>> 32));
+	}
+
+	static String encode(long nonce) {
+		char[] chars = new char[NONCE_LENGTH];
+		for (int i = NONCE_LENGTH - 1; i >= 0; i--) {
+			chars[i] = (char) ('a' + nonce % 26);
+			nonce /= 26;
+		}
+		return new String(chars);
+	}
+
+	// Returns -1 if the text at the offset is not a nonce
+	static long decode(String text, int offset) {
+		long nonce = 0;
+		for (int i = offset; i < offset + NONCE_LENGTH; i++) {
+			char c = Character.toLowerCase(text.charAt(i));
+			if (c < 'a' || c > 'z') {
+				return -1;
+			}
+			nonce = nonce * 26 + (c - 'a');
+		}
+		return nonce;
+	}
+
+	// Reads the payloads that have not expired and rewrites the file if most of it has
+	private void load(SegmentFile segmentFile) throws IOException {
+		long now = System.currentTimeMillis();
+		List<byte[]> live = new ArrayList<>();
+		int[] records = {0};
+		long validEnd = segmentFile.scan(0, segmentFile.size(), (offset, record) -> {
+			records[0]++;
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+			long nonce = in.readLong();
+			long issuedMillis = in.readLong();
+			String target = in.readUTF();
+			String parameter = in.readUTF();
+			String tool = in.readUTF();
+			if (issuedMillis + ttlMillis > now && find(nonce) < 0) {
+				add(nonce, new Origin(emptyToNull(tool), emptyToNull(target),
+						emptyToNull(parameter), issuedMillis));
+				live.add(record);
+			}
+			return true;
+		});
+		if (live.size() < records[0] / 2) {
+			segmentFile.truncate();
+			if (!live.isEmpty()) {
+				segmentFile.appendAll(live);
+			}
+		} else if (validEnd < segmentFile.size()) {
+			// Drop a record cut short by a crash
+			segmentFile.truncate(validEnd);
+		}
+	}
+
+	private static byte[] toRecord(long nonce, Origin origin) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeLong(nonce);
+			out.writeLong(origin.issuedMillis());
+			out.writeUTF(origin.target() == null ? "" : truncate(origin.target()));
+			out.writeUTF(origin.parameter() == null ? "" : truncate(origin.parameter()));
+			out.writeUTF(origin.tool() == null ? "" : origin.tool());
+			return bytes.toByteArray();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static String emptyToNull(String text) {
+		return text.isEmpty() ? null : text;
+	}
+
+	// writeUTF is limited to 64KB, which no sensible URL reaches
+	private static String truncate(String text) {
+		return text.length() > 4096 ? text.substring(0, 4096) : text;
+	}
+
+	private record StoredPayload(long nonce, Origin origin) {
+	}
+
+	/**
+	 * Where a payload was used: the Burp tool, the URL of the request and the parameter the
+	 * payload was in. Any of them may be null.
+	 */
+	public record Origin(String tool, String target, String parameter, long issuedMillis) {
+		@Override
+		public String toString() {
+			String text = target == null ? "" : target;
+			if (tool != null) {
+				text = tool + (text.isEmpty() ? "" : ": ") + text;
+			}
+			if (parameter != null) {
+				text += (text.isEmpty() ? "" : " ") + "[" + parameter + "]";
+			}
+			return text;
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package interactsh;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import org.json.JSONException;
+import org.json.JSONTokener;
+
+/**
+ * Reads a /poll response body as a stream. The wrapped AES key and each encrypted entry of the
+ * {@code data} array are handed over as soon as they have been read, so only one event is held in
+ * memory at a time instead of the whole body and its JSON tree. Any other field is skipped.
+ */
+public class PollResponseReader {
+
+	public interface Handler {
+		void aesKey(String wrappedKey) throws Exception;
+
+		void event(String encryptedEvent) throws Exception;
+	}
+
+	public static void read(InputStream body, Handler handler) throws Exception {
+		JSONTokener tokener =
+				new JSONTokener(new InputStreamReader(body, StandardCharsets.UTF_8));
+		if (tokener.nextClean() != '{') {
+			throw tokener.syntaxError("A poll response must be a JSON object");
+		}
+		if (tokener.nextClean() == '}') {
+			return;
+		}
+		tokener.back();
+
+		while (true) {
+			String key = tokener.nextValue().toString();
+			if (tokener.nextClean() != ':') {
+				throw tokener.syntaxError("Expected a ':' after a key");
+			}
+			switch (key) {
+				case "aes_key":
+					handler.aesKey(tokener.nextValue().toString());
+					break;
+				case "data":
+					readEvents(tokener, handler);
+					break;
+				default:
+					tokener.nextValue();
+			}
+
+			char c = tokener.nextClean();
+			if (c == '}') {
+				return;
+			}
+			if (c != ',') {
+				throw tokener.syntaxError("Expected a ',' or '}'");
+			}
+		}
+	}
+
+	private static void readEvents(JSONTokener tokener, Handler handler) throws Exception {
+		char c = tokener.nextClean();
+		if (c != '[') {
+			tokener.back();
+			// "data": null is sent when there are no new interactions
+			tokener.nextValue();
+			return;
+		}
+		if (tokener.nextClean() == ']') {
+			return;
+		}
+		tokener.back();
+
+		while (true) {
+			Object value = tokener.nextValue();
+			if (!(value instanceof String event)) {
+				throw new JSONException("Expected an encrypted event but got " + value);
+			}
+			handler.event(event);
+
+			c = tokener.nextClean();
+			if (c == ']') {
+				return;
+			}
+			if (c != ',') {
+				throw tokener.syntaxError("Expected a ',' or ']'");
+			}
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package interactsh;
+
+/**
+ * Keeps a moving average of the poll round trip and error rate of one server, so the best of
+ * several servers can be picked for new payloads. Recent polls weigh most, so a server that
+ * recovers is preferred again after a few successful polls.
+ */
+public class ServerHealth {
+	private static final double ALPHA = 0.2;
+	// A server that fails every poll scores as if it were this many times slower
+	private static final double ERROR_PENALTY = 10;
+	private static final double UNKNOWN_RTT_NANOS = 1e9;
+	private static final int MAX_CONSECUTIVE_FAILURES = 3;
+
+	private double rttNanos = -1;
+	private double errorRate;
+	private int consecutiveFailures;
+
+	public synchronized void record(long nanos, boolean failed) {
+		errorRate += ALPHA * ((failed ? 1 : 0) - errorRate);
+		if (failed) {
+			consecutiveFailures++;
+			return;
+		}
+		consecutiveFailures = 0;
+		rttNanos = rttNanos < 0 ? nanos : rttNanos + ALPHA * (nanos - rttNanos);
+	}
+
+	// Lower is better
+	public synchronized double getScore() {
+		double rtt = rttNanos < 0 ? UNKNOWN_RTT_NANOS : rttNanos;
+		return rtt * (1 + ERROR_PENALTY * errorRate);
+	}
+
+	public synchronized boolean isHealthy() {
+		return consecutiveFailures < MAX_CONSECUTIVE_FAILURES;
+	}
+
+	@Override
+	public synchronized String toString() {
+		String rtt = rttNanos < 0 ? "no polls yet" : String.format("%.0f ms", rttNanos / 1e6);
+		return String.format("%s, %.0f%% errors%s", rtt, errorRate * 100,
+				isHealthy() ? "" : ", down after " + consecutiveFailures + " failed polls");
+	}
+}
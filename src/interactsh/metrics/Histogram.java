@@ -0,0 +1,105 @@
+package interactsh.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+
+/**
+ * A lock-free histogram of non-negative values, such as latencies in nanoseconds. Values are
+ * bucketed by their highest set bit and the three bits below it, so percentiles are accurate to
+ * within 12.5% across the whole range of a long while recording is a few atomic increments.
+ */
+public class Histogram {
+	private static final int SUB_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+	@Getter
+	private final String name;
+	@Getter
+	private final Unit unit;
+	private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+	public enum Unit {
+		NANOS, COUNT
+	}
+
+	Histogram(String name, Unit unit) {
+		this.name = name;
+		this.unit = unit;
+	}
+
+	public void record(long value) {
+		value = Math.max(0, value);
+		buckets.incrementAndGet(bucket(value));
+		count.increment();
+		sum.add(value);
+		max.accumulate(value);
+	}
+
+	// Records the time since a System.nanoTime() taken at the start
+	public void recordSince(long startNanos) {
+		record(System.nanoTime() - startNanos);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public long getMean() {
+		long n = count.sum();
+		return n == 0 ? 0 : sum.sum() / n;
+	}
+
+	// The smallest value of the bucket the given fraction of values falls into
+	public long getPercentile(double fraction) {
+		long total = 0;
+		long[] counts = new long[buckets.length()];
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = buckets.get(i);
+			total += counts[i];
+		}
+		long rank = Math.max(1, (long) Math.ceil(fraction * total));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(lowerBound(i), getMax());
+			}
+		}
+		return 0;
+	}
+
+	public void reset() {
+		for (int i = 0; i < buckets.length(); i++) {
+			buckets.set(i, 0);
+		}
+		count.reset();
+		sum.reset();
+		max.reset();
+	}
+
+	private static int bucket(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int highBit = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (highBit - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return (highBit - SUB_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	private static long lowerBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int highBit = bucket / SUB_BUCKETS + SUB_BITS - 1;
+		return (1L << highBit) | ((long) (bucket % SUB_BUCKETS) << (highBit - SUB_BITS));
+	}
+}
@@ -0,0 +1,61 @@
+package interactsh.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters and histograms of the extension, by name. Instrumented code looks them up once and
+ * keeps them in a static field, so recording never goes through the registry.
+ */
+public final class Metrics {
+	// Declared first, so they exist when the fields below register themselves
+	private static final Map<String, Histogram> histograms = new LinkedHashMap<>();
+	private static final Map<String, LongAdder> counters = new LinkedHashMap<>();
+
+	public static final Histogram POLL_ROUND_TRIP =
+			histogram("poll.round-trip", Histogram.Unit.NANOS);
+	public static final Histogram AES_KEY_DECRYPT =
+			histogram("decrypt.aes-key", Histogram.Unit.NANOS);
+	public static final Histogram EVENT_DECRYPT = histogram("decrypt.event", Histogram.Unit.NANOS);
+	public static final Histogram ENTRY_PARSE = histogram("entry.parse", Histogram.Unit.NANOS);
+	public static final Histogram TABLE_APPEND = histogram("table.append", Histogram.Unit.NANOS);
+	public static final Histogram TABLE_BATCH = histogram("table.batch-size", Histogram.Unit.COUNT);
+	// From the timestamp the server gave an interaction to its row in the table, so it includes
+	// the poll interval and any clock skew between Burp and the server
+	public static final Histogram SERVER_TO_ROW = histogram("server-to-row", Histogram.Unit.NANOS);
+
+	public static final LongAdder POLLS = counter("polls");
+	public static final LongAdder POLL_FAILURES = counter("poll.failures");
+	public static final LongAdder EVENTS = counter("events");
+	public static final LongAdder EVENT_ERRORS = counter("event.errors");
+	public static final LongAdder TABLE_ROWS = counter("table.rows");
+
+	private Metrics() {
+	}
+
+	public static synchronized Histogram histogram(String name, Histogram.Unit unit) {
+		return histograms.computeIfAbsent(name, n -> new Histogram(n, unit));
+	}
+
+	public static synchronized LongAdder counter(String name) {
+		return counters.computeIfAbsent(name, n -> new LongAdder());
+	}
+
+	public static synchronized List<Histogram> getHistograms() {
+		return new ArrayList<>(histograms.values());
+	}
+
+	public static synchronized Map<String, Long> getCounters() {
+		Map<String, Long> values = new LinkedHashMap<>();
+		counters.forEach((name, counter) -> values.put(name, counter.sum()));
+		return values;
+	}
+
+	public static synchronized void reset() {
+		histograms.values().forEach(Histogram::reset);
+		counters.values().forEach(LongAdder::reset);
+	}
+}
@@ -0,0 +1,231 @@
+package interactsh.pipeline;
+
+import interactsh.EventBatchDecoder;
+import interactsh.InteractshEntry;
+import interactsh.metrics.Metrics;
+import interactsh.store.InteractionLog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.crypto.spec.SecretKeySpec;
+import org.json.JSONException;
+
+/**
+ * Carries polled interactions to the table in stages joined by bounded queues:
+ *
+ * <pre>
+ * fetch (poll threads) -> decrypt -> parse -> store -> render (EDT)
+ * </pre>
+ *
+ * The poll threads read responses and submit their events in chunks. Decrypt and parse each run
+ * on a thread of their own and hand large chunks to the shared decoder pool. Store writes the
+ * entries through to the {@link InteractionLog} file, and render is the queue the EDT adds rows
+ * from, which the owner of the table passes in.
+ *
+ * Every queue blocks its producer when it is full, and nothing is dropped. A slow stage therefore
+ * fills the queues before it one after the other until the poll threads stop reading responses,
+ * and interactions wait on the server instead of in the heap. The memory held by the pipeline is
+ * bounded by the queue capacities, however long the EDT or the disk stalls.
+ */
+public class InteractionPipeline {
+	public static final int CHUNK_SIZE = 1024;
+	// In chunks of up to CHUNK_SIZE events
+	private static final int QUEUE_CAPACITY = 8;
+
+	private final InteractionLog log;
+	private final Consumer<InteractionLog.Written> render;
+	private final Stage<Chunk> decrypt;
+	private final Stage<Chunk> parse;
+	private final Stage<List<InteractshEntry>> store;
+	private volatile boolean stopped;
+
+	/**
+	 * The render consumer is called from the store thread for every entry and is expected to block
+	 * while its own queue is full.
+	 */
+	public InteractionPipeline(InteractionLog log, Consumer<InteractionLog.Written> render) {
+		this.log = log;
+		this.render = render;
+		this.store = new Stage<>("store", QUEUE_CAPACITY, this::store);
+		this.parse = new Stage<>("parse", QUEUE_CAPACITY, this::parse);
+		this.decrypt = new Stage<>("decrypt", QUEUE_CAPACITY, this::decrypt);
+	}
+
+	// Queues encrypted events, blocking while the pipeline is full
+	public boolean submit(List<String> events, SecretKeySpec key) {
+		return submit(new Chunk(events, key, null));
+	}
+
+	// Queues events that were decrypted with a key that may turn out to be the wrong one
+	public boolean submit(List<String> events, Speculation speculation) {
+		speculation.started();
+		if (submit(new Chunk(events, speculation.key, speculation))) {
+			return true;
+		}
+		speculation.finished();
+		return false;
+	}
+
+	// Starts tracking the events of a poll response submitted before its own key was read
+	public Speculation speculate(SecretKeySpec cachedKey) {
+		return new Speculation(cachedKey);
+	}
+
+	private boolean submit(Chunk chunk) {
+		return !stopped && decrypt.submit(chunk);
+	}
+
+	public List<Stage<?>> getStages() {
+		return List.of(decrypt, parse, store);
+	}
+
+	public void stop() {
+		stopped = true;
+		decrypt.stop();
+		parse.stop();
+		store.stop();
+	}
+
+	private void decrypt(Chunk chunk) {
+		EventBatchDecoder.Result<byte[]> result =
+				EventBatchDecoder.decrypt(chunk.events, chunk.key);
+		chunk.decrypted = new ArrayList<>(result.size());
+		chunk.decryptedIndex = new int[result.size()];
+		for (int i = 0; i < result.size(); i++) {
+			if (result.get(i) != null) {
+				chunk.decryptedIndex[chunk.decrypted.size()] = i;
+				chunk.decrypted.add(result.get(i));
+			} else {
+				failed(chunk, i, result.getError(i));
+			}
+		}
+		if (!parse.submit(chunk) && chunk.speculation != null) {
+			chunk.speculation.finished();
+		}
+	}
+
+	private void parse(Chunk chunk) {
+		try {
+			EventBatchDecoder.Result<InteractshEntry> result =
+					EventBatchDecoder.parse(chunk.decrypted);
+			List<InteractshEntry> entries = new ArrayList<>(result.size());
+			for (int i = 0; i < result.size(); i++) {
+				if (result.get(i) != null) {
+					entries.add(result.get(i));
+					Metrics.EVENTS.increment();
+				} else {
+					failed(chunk, chunk.decryptedIndex[i], result.getError(i));
+				}
+			}
+			if (!entries.isEmpty()) {
+				store.submit(entries);
+			}
+		} finally {
+			if (chunk.speculation != null) {
+				chunk.speculation.finished();
+			}
+		}
+	}
+
+	private void store(List<InteractshEntry> entries) {
+		for (InteractionLog.Written written : log.write(entries)) {
+			if (stopped) {
+				return;
+			}
+			render.accept(written);
+		}
+	}
+
+	private static void failed(Chunk chunk, int index, Exception error) {
+		// A wrong key garbles the event, so it fails to parse rather than to decrypt
+		if (chunk.speculation != null
+				&& (error instanceof JSONException || error instanceof IllegalArgumentException)
+				&& chunk.speculation.keep(chunk.events.get(index))) {
+			return;
+		}
+		Metrics.EVENT_ERRORS.increment();
+		burp.BurpExtender.api.logging()
+				.logToError("Unable to decode interaction: " + error.getMessage());
+	}
+
+	private static class Chunk {
+		final List<String> events;
+		final SecretKeySpec key;
+		final Speculation speculation;
+		List<byte[]> decrypted;
+		// The event each decrypted one came from
+		int[] decryptedIndex;
+
+		Chunk(List<String> events, SecretKeySpec key, Speculation speculation) {
+			this.events = events;
+			this.key = key;
+			this.speculation = speculation;
+		}
+	}
+
+	/**
+	 * The events of one poll response that were submitted with the key cached from the previous
+	 * poll, before the response's own key was read. Once that key is known, {@link #resolve}
+	 * returns the events that did not decode, to be submitted again with it.
+	 */
+	public class Speculation {
+		private static final long WAIT_MILLIS = 100;
+
+		private final SecretKeySpec key;
+		private final List<String> failed = new ArrayList<>();
+		private int inFlight;
+		// Set once the cached key is known to be the right one, or that there is no other
+		private boolean confirmed;
+
+		private Speculation(SecretKeySpec key) {
+			this.key = key;
+		}
+
+		synchronized void started() {
+			inFlight++;
+		}
+
+		synchronized void finished() {
+			inFlight--;
+			notifyAll();
+		}
+
+		// Returns false if the event failed with the right key and is an error after all
+		synchronized boolean keep(String event) {
+			if (confirmed) {
+				return false;
+			}
+			failed.add(event);
+			return true;
+		}
+
+		/**
+		 * Returns the events that did not decode with the cached key, or an empty list and
+		 * reports them as errors if the actual key is the same or missing. Only when the key did
+		 * change, which is rare, this waits for the chunks that are still on their way.
+		 */
+		public synchronized List<String> resolve(SecretKeySpec actualKey) {
+			if (actualKey == null || actualKey.equals(key)) {
+				confirmed = true;
+				if (!failed.isEmpty()) {
+					Metrics.EVENT_ERRORS.add(failed.size());
+					burp.BurpExtender.api.logging()
+							.logToError("Unable to decode " + failed.size() + " interactions");
+					failed.clear();
+				}
+				return List.of();
+			}
+			try {
+				while (inFlight > 0 && !stopped) {
+					wait(WAIT_MILLIS);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			List<String> retry = new ArrayList<>(failed);
+			failed.clear();
+			return retry;
+		}
+	}
+}
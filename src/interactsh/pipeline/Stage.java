@@ -0,0 +1,93 @@
+package interactsh.pipeline;
+
+import interactsh.metrics.Histogram;
+import interactsh.metrics.Metrics;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import lombok.Getter;
+
+/**
+ * One stage of the {@link InteractionPipeline}: a bounded queue drained in order by a worker
+ * thread of its own. When the queue is full, {@link #submit} blocks until there is room, so a slow
+ * stage holds up the stages before it instead of letting its queue grow.
+ *
+ * The queue depth seen by every submit and the time submits spent waiting for room are recorded
+ * as {@code pipeline.<name>.depth} and {@code pipeline.<name>.stall}.
+ */
+public class Stage<T> {
+	private static final long OFFER_MILLIS = 100;
+
+	@Getter
+	private final String name;
+	@Getter
+	private final int capacity;
+	private final BlockingQueue<T> queue;
+	private final Consumer<T> worker;
+	private final Thread thread;
+	private final Histogram depth;
+	private final Histogram stall;
+	private volatile boolean stopped;
+
+	Stage(String name, int capacity, Consumer<T> worker) {
+		this.name = name;
+		this.capacity = capacity;
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.worker = worker;
+		this.depth = Metrics.histogram("pipeline." + name + ".depth", Histogram.Unit.COUNT);
+		this.stall = Metrics.histogram("pipeline." + name + ".stall", Histogram.Unit.NANOS);
+		this.thread = new Thread(this::run, "interactsh-" + name);
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	// Returns false if the stage was stopped before the item could be queued
+	public boolean submit(T item) {
+		depth.record(queue.size());
+		if (queue.offer(item)) {
+			return true;
+		}
+		long start = System.nanoTime();
+		try {
+			while (!stopped) {
+				if (queue.offer(item, OFFER_MILLIS, TimeUnit.MILLISECONDS)) {
+					return true;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			stall.recordSince(start);
+		}
+		return false;
+	}
+
+	public int getDepth() {
+		return queue.size();
+	}
+
+	void stop() {
+		stopped = true;
+		thread.interrupt();
+		queue.clear();
+	}
+
+	private void run() {
+		while (!stopped) {
+			T item;
+			try {
+				item = queue.take();
+			} catch (InterruptedException e) {
+				return;
+			}
+			try {
+				worker.accept(item);
+			} catch (Exception ex) {
+				burp.BurpExtender.api.logging()
+						.logToError("Interaction pipeline stage " + name + " failed: " + ex);
+			}
+		}
+	}
+}
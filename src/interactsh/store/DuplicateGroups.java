@@ -0,0 +1,66 @@
+package interactsh.store;
+
+import interactsh.InteractshEntry;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Groups rows that repeat the same interaction: the same unique ID, protocol and source address
+ * within one time bucket, such as the many resolvers looking up one DNS payload. The first row of
+ * a group is its head and counts the hits of the whole group.
+ *
+ * Only the groups of the most recent {@link #MAX_OPEN_GROUPS} keys can still grow, so the lookup
+ * map stays bounded however long the log gets.
+ */
+class DuplicateGroups {
+	static final long BUCKET_SECONDS = 60;
+	private static final int MAX_OPEN_GROUPS = 8192;
+
+	private int[] heads = new int[1024];
+	private int[] hits = new int[1024];
+	private final Map<String, Integer> openGroups =
+			new LinkedHashMap<>(MAX_OPEN_GROUPS * 2, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+					return size() > MAX_OPEN_GROUPS;
+				}
+			};
+
+	static String key(InteractshEntry entry) {
+		return entry.uid + '\n' + entry.protocol + '\n' + entry.address + '\n'
+				+ entry.timestamp.getEpochSecond() / BUCKET_SECONDS;
+	}
+
+	// Rows have to be added in order; returns the head of the row's group
+	int add(int row, String key) {
+		if (row >= heads.length) {
+			int length = Math.max(row + 1, heads.length * 2);
+			heads = Arrays.copyOf(heads, length);
+			hits = Arrays.copyOf(hits, length);
+		}
+		Integer head = openGroups.putIfAbsent(key, row);
+		if (head == null) {
+			heads[row] = row;
+			hits[row] = 1;
+			return row;
+		}
+		heads[row] = head;
+		hits[head]++;
+		return head;
+	}
+
+	int getHead(int row) {
+		return heads[row];
+	}
+
+	// The number of rows in the group of a head, or 0 for any other row
+	int getHits(int row) {
+		return heads[row] == row ? hits[row] : 0;
+	}
+
+	void clear() {
+		openGroups.clear();
+	}
+}
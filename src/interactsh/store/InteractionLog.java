@@ -0,0 +1,573 @@
+package interactsh.store;
+
+import interactsh.InteractshEntry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import lombok.Getter;
+
+/**
+ * Backing store of the interactions table. Every entry is written through to an append-only
+ * {@link SegmentFile} as it is added, and only the most recent ones are kept in memory up to a
+ * configurable budget; older ones are paged back in when a row is rendered or selected. Rows keep
+ * their index for the lifetime of the log, and read flags and per-protocol row sets are kept for
+ * every row, resident or not, so filtering never has to page entries in. So are the groups of
+ * duplicate interactions, see {@link DuplicateGroups}.
+ *
+ * When the file is persistent, the interactions stored by a previous session are not read at
+ * construction. They are handed out in chunks by {@link #readHistory} and appended with
+ * {@link #addStored} before any new entry, so a large history does not delay startup.
+ *
+ * New entries can be written to the file with {@link #write} on a background thread and added
+ * with {@link #addWritten} later, so the disk write does not have to happen on the EDT.
+ */
+public class InteractionLog implements AutoCloseable {
+	// Rough per-entry heap cost on top of the event bytes: the object, strings and Instant
+	private static final int ENTRY_OVERHEAD = 256;
+	private static final int PAGE_CACHE_SIZE = 1024;
+	private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+	private final SegmentFile store;
+	private long memoryBudget;
+	private boolean storeFailed;
+	// Changes on every clear, so entries written before it are not added after it
+	private volatile int generation;
+	// End of the interactions stored before this log was opened that have not been added yet
+	private long historyEnd;
+
+	private final List<InteractshEntry> resident = new ArrayList<>();
+	private int firstResidentRow;
+	private long residentBytes;
+	private long[] offsets = new long[1024];
+	// The type and time of every row, so sorting by them does not read spilled rows back in
+	private short[] protocolIds = new short[1024];
+	private long[] timestampNanos = new long[1024];
+	private final List<String> protocolNames = new ArrayList<>();
+	// Rows below this one are in the store and can be dropped from memory
+	private int storedRows;
+
+	private final BitSet read = new BitSet();
+	private int unreadCount;
+	private final Map<String, BitSet> protocolRows = new HashMap<>();
+	@Getter
+	private final SearchIndex searchIndex = new SearchIndex();
+	private final DuplicateGroups groups = new DuplicateGroups();
+
+	private final Map<Integer, InteractshEntry> pageCache =
+			new LinkedHashMap<>(PAGE_CACHE_SIZE, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Integer, InteractshEntry> eldest) {
+					return size() > PAGE_CACHE_SIZE;
+				}
+			};
+
+	/**
+	 * Opens the log on the given store file, keeping its contents as history, or on a temporary
+	 * file that is removed on close when the path is null.
+	 */
+	public InteractionLog(long memoryBudget, Path storePath) {
+		SegmentFile file = null;
+		try {
+			if (storePath == null) {
+				file = SegmentFile.createTemporary("interactsh-log");
+			} else {
+				Files.createDirectories(storePath.getParent());
+				file = new SegmentFile(storePath, false);
+			}
+		} catch (IOException e) {
+			burp.BurpExtender.api.logging().logToError(
+					"Unable to open interaction store, interactions are kept in memory: "
+							+ e.getMessage());
+		}
+		this.store = file;
+		this.storeFailed = file == null;
+		this.historyEnd = file == null ? 0 : file.size();
+		this.memoryBudget = memoryBudget;
+	}
+
+	public synchronized int size() {
+		return firstResidentRow + resident.size();
+	}
+
+	public synchronized int add(InteractshEntry entry) {
+		return addAll(List.of(entry));
+	}
+
+	// Returns the row of the first entry
+	public synchronized int addAll(List<InteractshEntry> entries) {
+		long[] entryOffsets = new long[entries.size()];
+		Arrays.fill(entryOffsets, -1);
+		return append(entries, entryOffsets);
+	}
+
+	/**
+	 * Writes entries to the store ahead of {@link #addWritten}, without holding the lock of the
+	 * log. Nothing is written while stored interactions are still to be read, so that a record cut
+	 * short at the end of the file can be dropped, or after the store failed; addWritten then
+	 * treats the entries like {@link #addAll}.
+	 */
+	public List<Written> write(List<InteractshEntry> entries) {
+		int expected;
+		boolean writable;
+		synchronized (this) {
+			expected = generation;
+			writable = !storeFailed && historyEnd == 0;
+		}
+		long[] eventOffsets = null;
+		if (writable) {
+			List<byte[]> events = new ArrayList<>(entries.size());
+			for (InteractshEntry entry : entries) {
+				events.add(entry.getEvent());
+			}
+			// clear() changes the generation before it truncates the store under this same lock
+			synchronized (store) {
+				if (generation != expected) {
+					return List.of();
+				}
+				try {
+					eventOffsets = store.appendAll(events);
+				} catch (IOException e) {
+					// Left to addWritten, which keeps them in memory if the store keeps failing
+				}
+			}
+		}
+		List<Written> written = new ArrayList<>(entries.size());
+		for (int i = 0; i < entries.size(); i++) {
+			written.add(new Written(entries.get(i), eventOffsets == null ? -1 : eventOffsets[i],
+					expected));
+		}
+		return written;
+	}
+
+	// Adds entries returned by write, except those written before the log was cleared
+	public synchronized int addWritten(List<Written> written) {
+		List<InteractshEntry> entries = new ArrayList<>(written.size());
+		long[] entryOffsets = new long[written.size()];
+		for (Written w : written) {
+			if (w.generation() == generation) {
+				entryOffsets[entries.size()] = w.offset();
+				entries.add(w.entry());
+			}
+		}
+		return append(entries, Arrays.copyOf(entryOffsets, entries.size()));
+	}
+
+	// Writes the entries without an offset (-1) to the store, then adds them all
+	private int append(List<InteractshEntry> entries, long[] entryOffsets) {
+		int firstRow = size();
+		if (!storeFailed) {
+			List<byte[]> events = new ArrayList<>();
+			for (int i = 0; i < entries.size(); i++) {
+				if (entryOffsets[i] < 0) {
+					events.add(entries.get(i).getEvent());
+				}
+			}
+			try {
+				long[] eventOffsets = events.isEmpty() ? null : store.appendAll(events);
+				for (int i = 0, next = 0; eventOffsets != null && i < entries.size(); i++) {
+					if (entryOffsets[i] < 0) {
+						entryOffsets[i] = eventOffsets[next++];
+					}
+				}
+			} catch (IOException e) {
+				// Keep everything in memory rather than losing interactions
+				storeFailed = true;
+				burp.BurpExtender.api.logging().logToError("Unable to store interactions in "
+						+ store.getPath() + ": " + e.getMessage());
+			}
+		}
+
+		ensureCapacity(firstRow + entries.size());
+		System.arraycopy(entryOffsets, 0, offsets, firstRow, entries.size());
+		int row = firstRow;
+		for (InteractshEntry entry : entries) {
+			// Only a contiguous run of stored rows may be dropped from memory
+			if (storedRows == row && offsets[row] >= 0) {
+				storedRows++;
+			}
+			index(row++, entry.protocol, entry.timestamp, entry.takeSearchWords(),
+					DuplicateGroups.key(entry));
+			resident.add(entry);
+			residentBytes += estimateSize(entry);
+		}
+		unreadCount += entries.size();
+		if (residentBytes > memoryBudget) {
+			evict();
+		}
+		return firstRow;
+	}
+
+	/**
+	 * Reads the interactions stored by a previous session, handing them to the consumer in chunks
+	 * until it returns false. Each entry is parsed once here to index it and is not kept. This
+	 * reads the whole store, so it should not be called on the EDT.
+	 */
+	public void readHistory(int chunkSize, Predicate<List<StoredRow>> consumer)
+			throws IOException {
+		long end;
+		synchronized (this) {
+			end = historyEnd;
+		}
+		if (end == 0) {
+			return;
+		}
+		List<StoredRow> chunk = new ArrayList<>(chunkSize);
+		long validEnd = store.scan(0, end, (offset, event) -> {
+			try {
+				InteractshEntry entry = new InteractshEntry(event);
+				chunk.add(new StoredRow(offset, entry.protocol, entry.timestamp,
+						entry.takeSearchWords(), DuplicateGroups.key(entry)));
+			} catch (Exception ex) {
+				burp.BurpExtender.api.logging().logToError(
+						"Skipping unreadable stored interaction at " + offset + ": "
+								+ ex.getMessage());
+			}
+			if (chunk.size() < chunkSize) {
+				return true;
+			}
+			List<StoredRow> rows = List.copyOf(chunk);
+			chunk.clear();
+			return consumer.test(rows);
+		});
+		if (!chunk.isEmpty()) {
+			consumer.test(List.copyOf(chunk));
+		}
+
+		synchronized (this) {
+			// A record cut short by a crash would shift every record appended after it
+			if (validEnd < end && historyEnd == end && store.size() == end) {
+				burp.BurpExtender.api.logging().logToError("Dropping " + (end - validEnd)
+						+ " bytes of incomplete interactions from " + store.getPath());
+				store.truncate(validEnd);
+			}
+		}
+	}
+
+	/**
+	 * Appends rows read by {@link #readHistory}, marked as read. They have to be added before any
+	 * new entry. Returns false without adding them if the log was cleared in the meantime.
+	 */
+	public synchronized boolean addStored(List<StoredRow> rows) {
+		if (historyEnd == 0) {
+			return false;
+		}
+		if (!resident.isEmpty()) {
+			throw new IllegalStateException("Stored interactions must be added first");
+		}
+		int firstRow = size();
+		ensureCapacity(firstRow + rows.size());
+		int row = firstRow;
+		for (StoredRow stored : rows) {
+			offsets[row] = stored.offset();
+			index(row++, stored.protocol(), stored.timestamp(), stored.searchWords(),
+					stored.groupKey());
+		}
+		read.set(firstRow, row);
+		firstResidentRow = row;
+		storedRows = row;
+		return true;
+	}
+
+	// Called once the history has been read, so that new entries can be added
+	public synchronized void finishHistory() {
+		historyEnd = 0;
+	}
+
+	public synchronized boolean isHistoryPending() {
+		return historyEnd > 0;
+	}
+
+	public synchronized InteractshEntry get(int row) {
+		if (row >= firstResidentRow) {
+			return resident.get(row - firstResidentRow);
+		}
+		InteractshEntry entry = pageCache.get(row);
+		if (entry == null) {
+			try {
+				entry = InteractshEntry.restore(store.read(offsets[row]));
+			} catch (IOException e) {
+				throw new UncheckedIOException("Unable to read stored interaction " + row, e);
+			}
+			pageCache.put(row, entry);
+		}
+		return entry;
+	}
+
+	/**
+	 * Returns the entry with its details built, e.g. for showing it. While the entry is resident,
+	 * the details count against the memory budget until it is evicted.
+	 */
+	public synchronized InteractshEntry getWithDetails(int row) {
+		InteractshEntry entry = get(row);
+		long before = entry.getDetailsSize();
+		entry.getDetails();
+		if (row >= firstResidentRow) {
+			residentBytes += entry.getDetailsSize() - before;
+			if (residentBytes > memoryBudget) {
+				evict();
+			}
+		}
+		return entry;
+	}
+
+	/**
+	 * The event of a row as sent by the server. Unlike {@link #get}, stored rows are read without
+	 * parsing or caching them, so going through every row leaves the page cache alone. The store
+	 * is read without holding the lock of the log. Returns null if the row does not exist, e.g.
+	 * because the log was cleared.
+	 */
+	public byte[] readEvent(int row) throws IOException {
+		long offset;
+		synchronized (this) {
+			if (row >= size()) {
+				return null;
+			}
+			if (row >= firstResidentRow) {
+				return resident.get(row - firstResidentRow).getEvent();
+			}
+			InteractshEntry cached = pageCache.get(row);
+			if (cached != null) {
+				return cached.getEvent();
+			}
+			offset = offsets[row];
+		}
+		return store.read(offset);
+	}
+
+	// Changes whenever the log is cleared, so that readers can tell rows have been replaced
+	public int getGeneration() {
+		return generation;
+	}
+
+	public synchronized boolean isRead(int row) {
+		return read.get(row);
+	}
+
+	// Returns false if the row was already read
+	public synchronized boolean setRead(int row) {
+		if (read.get(row)) {
+			return false;
+		}
+		read.set(row);
+		unreadCount--;
+		return true;
+	}
+
+	public synchronized void markAllRead() {
+		read.set(0, size());
+		unreadCount = 0;
+	}
+
+	public synchronized void markRead(BitSet rows) {
+		BitSet newlyRead = (BitSet) rows.clone();
+		newlyRead.clear(size(), Math.max(size(), newlyRead.length()));
+		newlyRead.andNot(read);
+		unreadCount -= newlyRead.cardinality();
+		read.or(newlyRead);
+	}
+
+	public synchronized String getProtocol(int row) {
+		return protocolNames.get(protocolIds[row]);
+	}
+
+	public synchronized Instant getTimestamp(int row) {
+		long nanos = timestampNanos[row];
+		return Instant.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND),
+				Math.floorMod(nanos, NANOS_PER_SECOND));
+	}
+
+	public synchronized boolean hasProtocol(int row, Collection<String> protocols) {
+		for (String protocol : protocols) {
+			BitSet rows = protocolRows.get(protocol);
+			if (rows != null && rows.get(row)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public synchronized BitSet getRows(Collection<String> protocols) {
+		BitSet result = new BitSet();
+		for (String protocol : protocols) {
+			BitSet rows = protocolRows.get(protocol);
+			if (rows != null) {
+				result.or(rows);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Finds the rows whose raw request or response contains the query. Rows the index cannot
+	 * decide on are checked against their text, so this should not be called on the EDT.
+	 */
+	public SearchResult search(String query) {
+		int rows;
+		SearchIndex.Candidates candidates;
+		synchronized (this) {
+			rows = size();
+			candidates = searchIndex.candidates(query);
+		}
+
+		BitSet matches = new BitSet();
+		BitSet toCheck = candidates == null ? null : candidates.rows();
+		if (candidates != null && !candidates.needsVerification()) {
+			// Only the rows with a word cut short in the index remain to be checked
+			matches = candidates.rows();
+			toCheck = candidates.cutRows();
+			matches.andNot(toCheck);
+		}
+		int row = toCheck == null ? 0 : toCheck.nextSetBit(0);
+		while (row >= 0 && row < rows) {
+			if (rowMatches(row, query)) {
+				matches.set(row);
+			}
+			row = toCheck == null ? row + 1 : toCheck.nextSetBit(row + 1);
+		}
+		matches.clear(rows, Math.max(rows, matches.length()));
+		return new SearchResult(this, query, matches, rows);
+	}
+
+	boolean rowMatches(int row, String query) {
+		InteractshEntry entry;
+		synchronized (this) {
+			// The log may have been cleared while a search was running
+			if (row >= size()) {
+				return false;
+			}
+			entry = get(row);
+		}
+		if (SearchIndex.isVerbatimInJson(query)
+				&& !SearchIndex.containsIgnoreCase(entry.getEvent(), query)) {
+			return false;
+		}
+		return SearchIndex.containsIgnoreCase(entry.getSearchableText(), query);
+	}
+
+	// The first row of the group of duplicates the row belongs to, which may be the row itself
+	public synchronized int getGroupHead(int row) {
+		return groups.getHead(row);
+	}
+
+	// The number of duplicates in the group of a head row, or 0 for any other row
+	public synchronized int getHitCount(int row) {
+		return groups.getHits(row);
+	}
+
+	public synchronized int getUnreadCount() {
+		return unreadCount;
+	}
+
+	public synchronized int getResidentCount() {
+		return resident.size();
+	}
+
+	public synchronized void setMemoryBudget(long memoryBudget) {
+		this.memoryBudget = memoryBudget;
+		if (residentBytes > memoryBudget) {
+			evict();
+		}
+	}
+
+	// Removes every interaction, including those kept in a persistent store
+	public synchronized void clear() {
+		resident.clear();
+		pageCache.clear();
+		read.clear();
+		unreadCount = 0;
+		protocolRows.clear();
+		protocolNames.clear();
+		searchIndex.clear();
+		groups.clear();
+		firstResidentRow = 0;
+		residentBytes = 0;
+		storedRows = 0;
+		historyEnd = 0;
+		generation++;
+		if (store == null) {
+			return;
+		}
+		storeFailed = false;
+		try {
+			store.truncate();
+		} catch (IOException e) {
+			storeFailed = true;
+			burp.BurpExtender.api.logging().logToError(
+					"Unable to truncate " + store.getPath() + ": " + e.getMessage());
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		resident.clear();
+		pageCache.clear();
+		if (store != null) {
+			store.close();
+		}
+	}
+
+	private void index(int row, String protocol, Instant timestamp, String[] words,
+			String groupKey) {
+		protocolRows.computeIfAbsent(protocol, p -> new BitSet()).set(row);
+		int protocolId = protocolNames.indexOf(protocol);
+		if (protocolId < 0) {
+			protocolId = protocolNames.size();
+			protocolNames.add(protocol);
+		}
+		protocolIds[row] = (short) protocolId;
+		// Good until the year 2262
+		timestampNanos[row] = timestamp.getEpochSecond() * NANOS_PER_SECOND + timestamp.getNano();
+		groups.add(row, groupKey);
+		if (words != null) {
+			searchIndex.add(row, words);
+		}
+	}
+
+	private void ensureCapacity(int rows) {
+		if (rows > offsets.length) {
+			int capacity = Math.max(rows, offsets.length * 2);
+			offsets = Arrays.copyOf(offsets, capacity);
+			protocolIds = Arrays.copyOf(protocolIds, capacity);
+			timestampNanos = Arrays.copyOf(timestampNanos, capacity);
+		}
+	}
+
+	// Drops the oldest stored entries until the resident set is back under 90% of the budget, so
+	// that this happens in batches rather than on every append
+	private void evict() {
+		long target = memoryBudget / 10 * 9;
+		int count = 0;
+		while (count < resident.size() && firstResidentRow + count < storedRows
+				&& residentBytes > target) {
+			residentBytes -= estimateSize(resident.get(count));
+			count++;
+		}
+		resident.subList(0, count).clear();
+		firstResidentRow += count;
+	}
+
+	// Includes the details of an entry that has been shown, see getWithDetails
+	private static long estimateSize(InteractshEntry entry) {
+		return entry.getEvent().length + ENTRY_OVERHEAD + entry.getDetailsSize();
+	}
+
+	public record StoredRow(long offset, String protocol, Instant timestamp, String[] searchWords,
+			String groupKey) {
+	}
+
+	// An entry and its offset in the store, or -1 if it has not been written
+	public record Written(InteractshEntry entry, long offset, int generation) {
+	}
+}
@@ -0,0 +1,331 @@
+package interactsh.store;
+
+import interactsh.PayloadRegistry;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import lombok.Getter;
+
+/**
+ * Writes rows of an {@link InteractionLog} to a file as JSON lines, CSV or a HAR archive.
+ *
+ * Rows are read one at a time with {@link InteractionLog#readEvent} and written straight to the
+ * file, so memory use does not grow with the number of rows and the page cache of the table is
+ * left alone. The file is written under a temporary name and only moved into place once complete,
+ * so a cancelled or failed export leaves nothing behind. Meant to be run off the EDT.
+ */
+public class LogExporter {
+	private static final int PROGRESS_INTERVAL = 1000;
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final String[] CSV_HEADER = {"ID", "Hits", "Entry", "Full ID", "Type",
+			"Source IP address", "Time", "Origin", "Raw request", "Raw response"};
+
+	public enum Format {
+		JSONL("JSON Lines", "jsonl"),
+		CSV("CSV", "csv"),
+		HAR("HAR, HTTP/-s interactions only", "har");
+
+		@Getter
+		private final String description;
+		@Getter
+		private final String extension;
+
+		Format(String description, String extension) {
+			this.description = description;
+			this.extension = extension;
+		}
+	}
+
+	private final InteractionLog log;
+	private final Format format;
+	private final int[] rows;
+	@Getter
+	private int exported;
+	// Rows the format has no place for, i.e. anything but HTTP/-s in a HAR archive
+	@Getter
+	private int skipped;
+	private boolean firstHarEntry = true;
+
+	// The rows are exported in the given order
+	public LogExporter(InteractionLog log, Format format, int[] rows) {
+		this.log = log;
+		this.format = format;
+		this.rows = rows;
+	}
+
+	/**
+	 * Writes the rows, handing the number of rows done so far to the progress consumer every so
+	 * often. Returns false if it was cancelled. Fails if the log is cleared in the meantime, as
+	 * its rows are then not the ones that were chosen.
+	 */
+	public boolean export(Path path, IntConsumer progress, BooleanSupplier cancelled)
+			throws IOException {
+		Path partial = path.resolveSibling(path.getFileName() + ".part");
+		int generation = log.getGeneration();
+		boolean complete = false;
+		try (Writer out = new BufferedWriter(new OutputStreamWriter(
+				Files.newOutputStream(partial), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+			writeHeader(out);
+			for (int i = 0; i < rows.length; i++) {
+				if (cancelled.getAsBoolean()) {
+					return false;
+				}
+				byte[] event = log.readEvent(rows[i]);
+				if (event == null || log.getGeneration() != generation) {
+					throw new IOException("The log was cleared during the export");
+				}
+				writeRow(out, rows[i], event);
+				if ((i + 1) % PROGRESS_INTERVAL == 0) {
+					progress.accept(i + 1);
+				}
+			}
+			writeFooter(out);
+			complete = true;
+		} finally {
+			if (!complete) {
+				Files.deleteIfExists(partial);
+			}
+		}
+		Files.move(partial, path, StandardCopyOption.REPLACE_EXISTING);
+		progress.accept(rows.length);
+		return true;
+	}
+
+	private void writeHeader(Writer out) throws IOException {
+		switch (format) {
+			case CSV:
+				writeCsvRecord(out, CSV_HEADER);
+				break;
+			case HAR:
+				String version = LogExporter.class.getPackage().getImplementationVersion();
+				JSONObject creator = new JSONObject();
+				creator.put("name", "Interactsh Collaborator");
+				creator.put("version", version == null ? "" : version);
+				out.write("{\"log\":{\"version\":\"1.2\",\"creator\":" + creator
+						+ ",\"entries\":[\n");
+				break;
+			default:
+				break;
+		}
+	}
+
+	private void writeFooter(Writer out) throws IOException {
+		if (format == Format.HAR) {
+			out.write("\n]}}\n");
+		}
+	}
+
+	private void writeRow(Writer out, int row, byte[] event) throws IOException {
+		String json = new String(event, StandardCharsets.UTF_8).strip();
+		try {
+			switch (format) {
+				case JSONL:
+					// The server sends each event on one line, but nothing guarantees it
+					out.write(json.indexOf('\n') < 0 ? json : new JSONObject(json).toString());
+					out.write('\n');
+					break;
+				case CSV:
+					writeCsvRecord(out, csvRecord(row, new JSONObject(json)));
+					break;
+				case HAR:
+					JSONObject interaction = new JSONObject(json);
+					String protocol = interaction.optString("protocol");
+					if (!protocol.equals("http") && !protocol.equals("https")) {
+						skipped++;
+						return;
+					}
+					if (!firstHarEntry) {
+						out.write(",\n");
+					}
+					firstHarEntry = false;
+					out.write(harEntry(interaction, protocol).toString());
+					break;
+			}
+			exported++;
+		} catch (JSONException ex) {
+			skipped++;
+			burp.BurpExtender.api.logging().logToError(
+					"Skipping unreadable interaction " + (row + 1) + ": " + ex.getMessage());
+		}
+	}
+
+	private String[] csvRecord(int row, JSONObject interaction) {
+		String uid = interaction.optString("unique-id");
+		PayloadRegistry payloads = burp.BurpExtender.payloads;
+		PayloadRegistry.Origin origin = payloads == null ? null : payloads.resolve(uid);
+		int hits = log.getHitCount(row);
+		return new String[] {Integer.toString(row + 1), hits == 0 ? "" : Integer.toString(hits),
+				uid, interaction.optString("full-id"), interaction.optString("protocol"),
+				interaction.optString("remote-address"), interaction.optString("timestamp"),
+				origin == null ? "" : origin.toString(), interaction.optString("raw-request"),
+				interaction.optString("raw-response")};
+	}
+
+	private static void writeCsvRecord(Writer out, String[] fields) throws IOException {
+		for (int i = 0; i < fields.length; i++) {
+			if (i > 0) {
+				out.write(',');
+			}
+			String field = fields[i];
+			// Interactions are sent by anyone, so nothing may turn into a spreadsheet formula
+			if (!field.isEmpty() && "=+-@\t\r".indexOf(field.charAt(0)) >= 0) {
+				field = "'" + field;
+			}
+			if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0 || field.indexOf('\n') >= 0
+					|| field.indexOf('\r') >= 0) {
+				field = '"' + field.replace("\"", "\"\"") + '"';
+			}
+			out.write(field);
+		}
+		out.write("\r\n");
+	}
+
+	private static JSONObject harEntry(JSONObject interaction, String scheme) {
+		HttpMessage request = HttpMessage.parse(interaction.optString("raw-request"));
+		HttpMessage response = HttpMessage.parse(interaction.optString("raw-response"));
+
+		// The request line is "METHOD target HTTP/x.y", the status line "HTTP/x.y code text"
+		String[] requestLine = request.startLine.split(" ", 3);
+		String method = requestLine[0];
+		String target = requestLine.length > 1 ? requestLine[1] : "/";
+		String host = request.header("Host", interaction.optString("full-id"));
+		String url = target.startsWith("http://") || target.startsWith("https://") ? target
+				: scheme + "://" + host + target;
+
+		JSONObject harRequest = new JSONObject();
+		harRequest.put("method", method);
+		harRequest.put("url", url);
+		harRequest.put("httpVersion", requestLine.length > 2 ? requestLine[2] : "HTTP/1.1");
+		harRequest.put("cookies", new JSONArray());
+		harRequest.put("headers", request.headers);
+		harRequest.put("queryString", queryString(url));
+		if (!request.body.isEmpty()) {
+			JSONObject postData = new JSONObject();
+			postData.put("mimeType", request.header("Content-Type", ""));
+			postData.put("text", request.body);
+			harRequest.put("postData", postData);
+		}
+		harRequest.put("headersSize", -1);
+		harRequest.put("bodySize", request.bodySize());
+
+		String[] statusLine = response.startLine.split(" ", 3);
+		int status = 0;
+		try {
+			status = statusLine.length > 1 ? Integer.parseInt(statusLine[1]) : 0;
+		} catch (NumberFormatException ex) {
+			// Left at 0, which HAR uses for a missing response
+		}
+		JSONObject content = new JSONObject();
+		content.put("size", response.bodySize());
+		content.put("mimeType", response.header("Content-Type", ""));
+		content.put("text", response.body);
+		JSONObject harResponse = new JSONObject();
+		harResponse.put("status", status);
+		harResponse.put("statusText", statusLine.length > 2 ? statusLine[2] : "");
+		harResponse.put("httpVersion", statusLine[0]);
+		harResponse.put("cookies", new JSONArray());
+		harResponse.put("headers", response.headers);
+		harResponse.put("content", content);
+		harResponse.put("redirectURL", response.header("Location", ""));
+		harResponse.put("headersSize", -1);
+		harResponse.put("bodySize", response.bodySize());
+
+		JSONObject timings = new JSONObject();
+		timings.put("send", 0);
+		timings.put("wait", 0);
+		timings.put("receive", 0);
+		JSONObject entry = new JSONObject();
+		entry.put("startedDateTime", interaction.optString("timestamp"));
+		entry.put("time", 0);
+		entry.put("request", harRequest);
+		entry.put("response", harResponse);
+		entry.put("cache", new JSONObject());
+		entry.put("timings", timings);
+		// Custom fields have to start with an underscore
+		entry.put("_remoteAddress", interaction.optString("remote-address"));
+		entry.put("_uniqueId", interaction.optString("unique-id"));
+		return entry;
+	}
+
+	private static JSONArray queryString(String url) {
+		JSONArray parameters = new JSONArray();
+		int start = url.indexOf('?');
+		if (start < 0) {
+			return parameters;
+		}
+		int end = url.indexOf('#', start);
+		for (String pair : url.substring(start + 1, end < 0 ? url.length() : end).split("&")) {
+			if (pair.isEmpty()) {
+				continue;
+			}
+			int equals = pair.indexOf('=');
+			JSONObject parameter = new JSONObject();
+			parameter.put("name", equals < 0 ? pair : pair.substring(0, equals));
+			parameter.put("value", equals < 0 ? "" : pair.substring(equals + 1));
+			parameters.put(parameter);
+		}
+		return parameters;
+	}
+
+	// The start line, headers and body of a raw HTTP message
+	private static class HttpMessage {
+		final String startLine;
+		final JSONArray headers = new JSONArray();
+		final String body;
+
+		private HttpMessage(String startLine, String body) {
+			this.startLine = startLine;
+			this.body = body;
+		}
+
+		static HttpMessage parse(String raw) {
+			int headEnd = raw.indexOf("\r\n\r\n");
+			int bodyStart = headEnd + 4;
+			if (headEnd < 0) {
+				headEnd = raw.indexOf("\n\n");
+				bodyStart = headEnd + 2;
+			}
+			if (headEnd < 0) {
+				headEnd = raw.length();
+				bodyStart = raw.length();
+			}
+			String[] lines = raw.substring(0, headEnd).split("\r?\n");
+			HttpMessage message = new HttpMessage(lines[0], raw.substring(bodyStart));
+			for (int i = 1; i < lines.length; i++) {
+				int colon = lines[i].indexOf(':');
+				if (colon > 0) {
+					JSONObject header = new JSONObject();
+					header.put("name", lines[i].substring(0, colon).trim());
+					header.put("value", lines[i].substring(colon + 1).trim());
+					message.headers.put(header);
+				}
+			}
+			return message;
+		}
+
+		String header(String name, String defaultValue) {
+			for (int i = 0; i < headers.length(); i++) {
+				JSONObject header = headers.getJSONObject(i);
+				if (header.getString("name").equalsIgnoreCase(name)) {
+					return header.getString("value");
+				}
+			}
+			return defaultValue;
+		}
+
+		int bodySize() {
+			return body.getBytes(StandardCharsets.UTF_8).length;
+		}
+	}
+}
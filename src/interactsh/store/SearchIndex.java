@@ -0,0 +1,277 @@
+package interactsh.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Inverted index from words in the raw request and response of every interaction to the rows that
+ * contain them. A word is a run of letters, digits, '-' and '_', compared case-insensitively, so
+ * hostnames, header names and exfiltrated tokens each end up as one or a few words.
+ *
+ * A query is answered from the posting lists of the words that can contain it: a single word may
+ * sit anywhere inside a word of the text, while in a longer query the first word may be the end
+ * and the last word the start of one. Whenever that cannot tell a match for certain, the
+ * candidates are flagged for verification against the entry text.
+ *
+ * Words longer than {@link #MAX_WORD_LENGTH}, such as encoded blobs, are indexed by their prefix
+ * only, so a query may also match past the cut. The rows with such a word are returned as
+ * candidates that always have to be verified.
+ *
+ * The words that can contain a part of the query are found through a trigram index over the
+ * vocabulary, which maps every three characters to the words they occur in. Only the words that
+ * have all trigrams of the part are compared with it, so a lookup does not grow with the
+ * vocabulary, which random IDs and tokens keep growing. Parts shorter than a trigram are compared
+ * with every word.
+ */
+public class SearchIndex {
+	private static final int MIN_WORD_LENGTH = 2;
+	// Longer words, such as large encoded blobs, are indexed by their prefix only
+	private static final int MAX_WORD_LENGTH = 128;
+	private static final int GRAM_LENGTH = 3;
+
+	private final Map<String, Postings> postings = new HashMap<>();
+	// Every word by its ID, in the order they were first seen, and the rows it is in
+	private final List<String> vocabulary = new ArrayList<>();
+	private final List<Postings> vocabularyRows = new ArrayList<>();
+	// The IDs of the words every trigram occurs in
+	private final Map<Long, Postings> trigrams = new HashMap<>();
+	// Rows with a word that may have been cut at MAX_WORD_LENGTH
+	private final BitSet cutRows = new BitSet();
+
+	public static String[] tokenize(String... texts) {
+		Set<String> words = new LinkedHashSet<>();
+		for (String text : texts) {
+			forEachWord(text, words::add);
+		}
+		return words.toArray(String[]::new);
+	}
+
+	public synchronized void add(int row, String[] words) {
+		for (String word : words) {
+			postings.computeIfAbsent(word, this::addWord).add(row);
+			if (word.length() == MAX_WORD_LENGTH) {
+				cutRows.set(row);
+			}
+		}
+	}
+
+	public synchronized void clear() {
+		postings.clear();
+		vocabulary.clear();
+		vocabularyRows.clear();
+		trigrams.clear();
+		cutRows.clear();
+	}
+
+	public synchronized int getWordCount() {
+		return postings.size();
+	}
+
+	/**
+	 * Returns the rows that may match the query, or null when the query has no indexable word and
+	 * every row has to be checked.
+	 */
+	public synchronized Candidates candidates(String query) {
+		List<String> words = new ArrayList<>();
+		forEachWord(query, words::add);
+		if (words.isEmpty()) {
+			return null;
+		}
+
+		if (words.size() == 1) {
+			String word = words.get(0);
+			boolean exact = query.length() <= MAX_WORD_LENGTH && word.equals(query.toLowerCase());
+			BitSet rows = rowsWithWord(word, w -> w.contains(word));
+			rows.or(cutRows);
+			return new Candidates(rows, !exact, (BitSet) cutRows.clone());
+		}
+
+		// Only the inner words of the query are complete words of the text
+		BitSet rows = null;
+		for (int i = 0; i < words.size(); i++) {
+			String word = words.get(i);
+			BitSet wordRows;
+			if (i == 0) {
+				// The end of a cut word is not known
+				wordRows = rowsWithWord(word, w -> w.endsWith(word));
+				wordRows.or(cutRows);
+			} else if (i == words.size() - 1) {
+				wordRows = rowsWithWord(word, w -> w.startsWith(word));
+			} else {
+				Postings exact = postings.get(word);
+				wordRows = exact == null ? new BitSet() : exact.toBitSet();
+			}
+			if (rows == null) {
+				rows = wordRows;
+			} else {
+				rows.and(wordRows);
+			}
+		}
+		return new Candidates(rows, true, new BitSet());
+	}
+
+	public static boolean containsIgnoreCase(String text, String query) {
+		int last = text.length() - query.length();
+		for (int i = 0; i <= last; i++) {
+			if (text.regionMatches(true, i, query, 0, query.length())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Whether the query appears unchanged in the JSON encoding of any text containing it. The
+	 * server escapes quotes, backslashes, control characters and '<', '>' and '&'.
+	 */
+	public static boolean isVerbatimInJson(String query) {
+		for (int i = 0; i < query.length(); i++) {
+			char c = query.charAt(i);
+			if (c < 0x20 || c > 0x7e || c == '"' || c == '\\' || c == '<' || c == '>'
+					|| c == '&') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// ASCII-only variant for matching raw event bytes against a query that is verbatim in JSON
+	public static boolean containsIgnoreCase(byte[] text, String query) {
+		int length = query.length();
+		int last = text.length - length;
+		outer: for (int i = 0; i <= last; i++) {
+			for (int j = 0; j < length; j++) {
+				if (Character.toLowerCase((char) text[i + j]) != Character
+						.toLowerCase(query.charAt(j))) {
+					continue outer;
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	private Postings addWord(String word) {
+		int id = vocabulary.size();
+		Postings rows = new Postings();
+		vocabulary.add(word);
+		vocabularyRows.add(rows);
+		for (int i = 0; i + GRAM_LENGTH <= word.length(); i++) {
+			trigrams.computeIfAbsent(trigram(word, i), t -> new Postings()).add(id);
+		}
+		return rows;
+	}
+
+	// The rows of the words the matcher accepts, where every such word contains the given part
+	private BitSet rowsWithWord(String part, Predicate<String> matcher) {
+		BitSet rows = new BitSet();
+		if (part.length() < GRAM_LENGTH) {
+			for (int id = 0; id < vocabulary.size(); id++) {
+				if (matcher.test(vocabulary.get(id))) {
+					vocabularyRows.get(id).addTo(rows);
+				}
+			}
+			return rows;
+		}
+
+		// Walk the shortest list of word IDs and look the others up in it
+		List<Postings> lists = new ArrayList<>();
+		for (int i = 0; i + GRAM_LENGTH <= part.length(); i++) {
+			Postings ids = trigrams.get(trigram(part, i));
+			if (ids == null) {
+				return rows;
+			}
+			lists.add(ids);
+		}
+		lists.sort((a, b) -> Integer.compare(a.size, b.size));
+		Postings shortest = lists.get(0);
+		outer: for (int i = 0; i < shortest.size; i++) {
+			int id = shortest.rows[i];
+			for (int j = 1; j < lists.size(); j++) {
+				if (!lists.get(j).contains(id)) {
+					continue outer;
+				}
+			}
+			if (matcher.test(vocabulary.get(id))) {
+				vocabularyRows.get(id).addTo(rows);
+			}
+		}
+		return rows;
+	}
+
+	private static long trigram(String word, int start) {
+		return (long) word.charAt(start) << 32 | (long) word.charAt(start + 1) << 16
+				| word.charAt(start + 2);
+	}
+
+	private interface WordConsumer {
+		void accept(String word);
+	}
+
+	private static void forEachWord(String text, WordConsumer consumer) {
+		if (text == null) {
+			return;
+		}
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			boolean wordChar = i < text.length() && isWordChar(text.charAt(i));
+			if (wordChar && start < 0) {
+				start = i;
+			} else if (!wordChar && start >= 0) {
+				int end = Math.min(i, start + MAX_WORD_LENGTH);
+				if (end - start >= MIN_WORD_LENGTH) {
+					consumer.accept(text.substring(start, end).toLowerCase());
+				}
+				start = -1;
+			}
+		}
+	}
+
+	private static boolean isWordChar(char c) {
+		return Character.isLetterOrDigit(c) || c == '-' || c == '_';
+	}
+
+	// Without verification, the rows are certain matches except for the cut rows among them
+	public record Candidates(BitSet rows, boolean needsVerification, BitSet cutRows) {
+	}
+
+	// Rows, or word IDs, are appended in increasing order, so a posting list is a sorted,
+	// duplicate-free array
+	private static class Postings {
+		private int[] rows = new int[2];
+		private int size;
+
+		void add(int row) {
+			if (size > 0 && rows[size - 1] == row) {
+				return;
+			}
+			if (size == rows.length) {
+				rows = Arrays.copyOf(rows, size + (size >> 1) + 1);
+			}
+			rows[size++] = row;
+		}
+
+		boolean contains(int row) {
+			return Arrays.binarySearch(rows, 0, size, row) >= 0;
+		}
+
+		void addTo(BitSet target) {
+			for (int i = 0; i < size; i++) {
+				target.set(rows[i]);
+			}
+		}
+
+		BitSet toBitSet() {
+			BitSet result = new BitSet();
+			addTo(result);
+			return result;
+		}
+	}
+}
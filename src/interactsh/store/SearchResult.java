@@ -0,0 +1,38 @@
+package interactsh.store;
+
+import java.util.BitSet;
+import lombok.Getter;
+
+/**
+ * Rows matching a search query. Rows appended to the log after the search ran are checked against
+ * the query the first time they are asked about.
+ */
+public class SearchResult {
+	private final InteractionLog log;
+	@Getter
+	private final String query;
+	private final BitSet matches;
+	private final int searchedRows;
+	private final BitSet checkedRows = new BitSet();
+
+	SearchResult(InteractionLog log, String query, BitSet matches, int searchedRows) {
+		this.log = log;
+		this.query = query;
+		this.matches = matches;
+		this.searchedRows = searchedRows;
+	}
+
+	public synchronized boolean matches(int row) {
+		if (row >= searchedRows && !checkedRows.get(row)) {
+			checkedRows.set(row);
+			if (log.rowMatches(row, query)) {
+				matches.set(row);
+			}
+		}
+		return matches.get(row);
+	}
+
+	public synchronized int getMatchCount() {
+		return matches.cardinality();
+	}
+}
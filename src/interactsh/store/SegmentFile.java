@@ -0,0 +1,150 @@
+package interactsh.store;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * An append-only file of length-prefixed records. Records are addressed by the offset returned
+ * from {@link #append(byte[])} and read back with positional reads, so appends and reads do not
+ * disturb each other.
+ *
+ * A record cut short by a crash can only be the last one, so {@link #scan} stops there and reports
+ * where the intact records end.
+ */
+public class SegmentFile implements Closeable {
+	private static final int HEADER_LENGTH = Integer.BYTES;
+
+	@Getter
+	private final Path path;
+	private final boolean deleteOnClose;
+	private final FileChannel channel;
+	private long size;
+
+	public SegmentFile(Path path, boolean deleteOnClose) throws IOException {
+		this.path = path;
+		this.deleteOnClose = deleteOnClose;
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		this.size = channel.size();
+	}
+
+	public static SegmentFile createTemporary(String prefix) throws IOException {
+		Path path = Files.createTempFile(prefix, ".seg");
+		path.toFile().deleteOnExit();
+		return new SegmentFile(path, true);
+	}
+
+	public synchronized long append(byte[] record) throws IOException {
+		return appendAll(List.of(record))[0];
+	}
+
+	// Writes all records at once and returns their offsets
+	public synchronized long[] appendAll(List<byte[]> records) throws IOException {
+		int length = 0;
+		for (byte[] record : records) {
+			length += HEADER_LENGTH + record.length;
+		}
+		long[] offsets = new long[records.size()];
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		for (int i = 0; i < offsets.length; i++) {
+			offsets[i] = size + buffer.position();
+			buffer.putInt(records.get(i).length).put(records.get(i));
+		}
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer, size + buffer.position());
+		}
+		size += length;
+		return offsets;
+	}
+
+	public byte[] read(long offset) throws IOException {
+		ByteBuffer lengthBuffer = ByteBuffer.allocate(HEADER_LENGTH);
+		readFully(lengthBuffer, offset);
+		int length = lengthBuffer.flip().getInt();
+		// Guards reads that race with a truncation against allocating a garbage length
+		if (length < 0 || offset + HEADER_LENGTH + length > size()) {
+			throw new IOException("No record at offset " + offset + " in " + path);
+		}
+		ByteBuffer record = ByteBuffer.allocate(length);
+		readFully(record, offset + HEADER_LENGTH);
+		return record.array();
+	}
+
+	public synchronized long size() {
+		return size;
+	}
+
+	public synchronized void truncate() throws IOException {
+		truncate(0);
+	}
+
+	public synchronized void truncate(long newSize) throws IOException {
+		channel.truncate(newSize);
+		size = Math.min(size, newSize);
+	}
+
+	/**
+	 * Reads the records between the two offsets in order, stopping early when the visitor returns
+	 * false. Returns the offset after the last intact record that was read.
+	 */
+	public long scan(long from, long to, RecordVisitor visitor) throws IOException {
+		long position = from;
+		try (InputStream in = Channels.newInputStream(openForReading(from));
+				DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16))) {
+			while (position + HEADER_LENGTH <= to) {
+				int length = data.readInt();
+				if (length < 0 || position + HEADER_LENGTH + length > to) {
+					break;
+				}
+				byte[] record = new byte[length];
+				data.readFully(record);
+				long offset = position;
+				position += HEADER_LENGTH + length;
+				if (!visitor.visit(offset, record)) {
+					break;
+				}
+			}
+		} catch (EOFException e) {
+			// The file was truncated while it was being read
+		}
+		return position;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		channel.close();
+		if (deleteOnClose) {
+			Files.deleteIfExists(path);
+		}
+	}
+
+	// A separate channel, so that scanning does not hold up appends and positional reads
+	private FileChannel openForReading(long position) throws IOException {
+		return FileChannel.open(path, StandardOpenOption.READ).position(position);
+	}
+
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException("Truncated record at offset " + position + " in " + path);
+			}
+		}
+	}
+
+	public interface RecordVisitor {
+		boolean visit(long offset, byte[] record) throws IOException;
+	}
+}
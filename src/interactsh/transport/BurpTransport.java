@@ -0,0 +1,51 @@
+package interactsh.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+
+/**
+ * Sends every request through Burp's own HTTP stack, so upstream proxy and TLS settings apply.
+ * Each request uses a new connection.
+ */
+public class BurpTransport extends PollTransport {
+
+	public BurpTransport() {
+		super(Transports.BURP);
+	}
+
+	@Override
+	protected Response execute(Target target, String method, String path, String body)
+			throws IOException {
+		StringBuilder requestBuilder = new StringBuilder();
+
+		requestBuilder.append(method).append(" ").append(path).append(" HTTP/1.1\r\n")
+				.append("Host: ").append(target.uriHost()).append("\r\n").append("User-Agent: ")
+				.append(USER_AGENT).append("\r\n");
+
+		if (body != null) {
+			requestBuilder.append("Content-Type: application/json\r\n").append("Content-Length: ")
+					.append(body.length()).append("\r\n");
+		}
+
+		if (target.hasAuthorization()) {
+			requestBuilder.append("Authorization: ").append(target.authorization()).append("\r\n");
+		}
+
+		requestBuilder.append("Connection: close\r\n\r\n");
+		if (body != null) {
+			requestBuilder.append(body);
+		}
+
+		HttpService httpService =
+				HttpService.httpService(target.host(), target.port(), target.tls());
+		HttpRequest httpRequest = HttpRequest.httpRequest(httpService, requestBuilder.toString());
+		HttpResponse resp = burp.BurpExtender.api.http().sendRequest(httpRequest).response();
+		if (resp == null) {
+			throw new IOException("No response received from " + target.host());
+		}
+		return new Response(resp.statusCode(), new ByteArrayInputStream(resp.body().getBytes()));
+	}
+}
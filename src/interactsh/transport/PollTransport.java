@@ -0,0 +1,61 @@
+package interactsh.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import lombok.Getter;
+
+public abstract class PollTransport {
+	public static final String USER_AGENT = "Interact.sh Client";
+
+	@Getter
+	private final String name;
+	@Getter
+	private final TransportStats stats = new TransportStats();
+
+	protected PollTransport(String name) {
+		this.name = name;
+	}
+
+	public final Response send(Target target, String method, String path, String body)
+			throws IOException {
+		long start = System.nanoTime();
+		try {
+			Response response = execute(target, method, path, body);
+			stats.record(System.nanoTime() - start, response.statusCode() >= 500);
+			return response;
+		} catch (IOException | RuntimeException ex) {
+			stats.record(System.nanoTime() - start, true);
+			throw ex;
+		}
+	}
+
+	protected abstract Response execute(Target target, String method, String path, String body)
+			throws IOException;
+
+	public void close() {}
+
+	public record Target(String host, int port, boolean tls, String authorization) {
+		public boolean hasAuthorization() {
+			return authorization != null && !authorization.isEmpty();
+		}
+
+		// The host as written in a URI or a Host header, with an IPv6 address in brackets
+		public String uriHost() {
+			return host.indexOf(':') >= 0 ? "[" + host + "]" : host;
+		}
+	}
+
+	// The body is streamed, so responses have to be closed once they have been consumed
+	public record Response(int statusCode, InputStream body) implements Closeable {
+		public String bodyToString() throws IOException {
+			return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public void close() throws IOException {
+			body.close();
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package interactsh.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Sends requests with the JDK HTTP client, which keeps connections to the server open and reuses
+ * them across polls. With HTTP/2 enabled, requests to the same server are multiplexed over a
+ * single connection when the server supports it.
+ */
+public class PooledHttpTransport extends PollTransport {
+	private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+	private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+	private final HttpClient.Version version;
+	// Created on first use, and again after close(), so a closed transport can be used again
+	private ExecutorService executor;
+	private HttpClient httpClient;
+
+	public PooledHttpTransport(String name, HttpClient.Version version) {
+		super(name);
+		this.version = version;
+	}
+
+	private synchronized HttpClient httpClient() {
+		if (httpClient == null) {
+			executor = Executors.newCachedThreadPool(r -> {
+				Thread thread = new Thread(r, "interactsh-http");
+				thread.setDaemon(true);
+				return thread;
+			});
+			httpClient = HttpClient.newBuilder().version(version).connectTimeout(CONNECT_TIMEOUT)
+					.followRedirects(HttpClient.Redirect.NEVER).executor(executor).build();
+		}
+		return httpClient;
+	}
+
+	@Override
+	protected Response execute(Target target, String method, String path, String body)
+			throws IOException {
+		URI uri = URI.create((target.tls() ? "https://" : "http://") + target.uriHost() + ":"
+				+ target.port() + path);
+
+		HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(REQUEST_TIMEOUT)
+				.header("User-Agent", USER_AGENT);
+		if (target.hasAuthorization()) {
+			builder.header("Authorization", target.authorization());
+		}
+		if (body != null) {
+			builder.header("Content-Type", "application/json")
+					.method(method, HttpRequest.BodyPublishers.ofString(body));
+		} else {
+			builder.method(method, HttpRequest.BodyPublishers.noBody());
+		}
+
+		try {
+			HttpResponse<InputStream> resp =
+					httpClient().send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+			return new Response(resp.statusCode(), resp.body());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Request to " + target.host() + " was interrupted", e);
+		}
+	}
+
+	/**
+	 * Aborts requests in flight and closes the pooled connections. Java 21 and later have
+	 * {@code HttpClient.shutdownNow()} for this; on older ones the connections and the selector
+	 * thread go once the client is no longer referenced.
+	 */
+	@Override
+	public synchronized void close() {
+		if (httpClient == null) {
+			return;
+		}
+		try {
+			HttpClient.class.getMethod("shutdownNow").invoke(httpClient);
+		} catch (NoSuchMethodException e) {
+			// Java 17 to 20
+		} catch (ReflectiveOperationException e) {
+			burp.BurpExtender.api.logging()
+					.logToError("Unable to shut down " + getName() + " client: " + e);
+		}
+		executor.shutdownNow();
+		httpClient = null;
+		executor = null;
+	}
+}
@@ -0,0 +1,49 @@
+package interactsh.transport;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class TransportStats {
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final AtomicLong maxNanos = new AtomicLong();
+	private volatile long lastNanos;
+
+	void record(long nanos, boolean error) {
+		requests.increment();
+		totalNanos.add(nanos);
+		maxNanos.accumulateAndGet(nanos, Math::max);
+		lastNanos = nanos;
+		if (error) {
+			errors.increment();
+		}
+	}
+
+	public long getRequests() {
+		return requests.sum();
+	}
+
+	public long getErrors() {
+		return errors.sum();
+	}
+
+	public double getAverageMillis() {
+		long count = requests.sum();
+		return count == 0 ? 0 : totalNanos.sum() / (count * 1_000_000.0);
+	}
+
+	public double getMaxMillis() {
+		return maxNanos.get() / 1_000_000.0;
+	}
+
+	public double getLastMillis() {
+		return lastNanos / 1_000_000.0;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d requests, %d errors, last %.1f ms, avg %.1f ms, max %.1f ms",
+				getRequests(), getErrors(), getLastMillis(), getAverageMillis(), getMaxMillis());
+	}
+}
@@ -0,0 +1,36 @@
+package interactsh.transport;
+
+import java.net.http.HttpClient;
+import java.util.List;
+
+public class Transports {
+	public static final String BURP = "Burp";
+	public static final String KEEP_ALIVE = "Keep-alive";
+	public static final String HTTP2 = "HTTP/2";
+
+	private static final List<PollTransport> TRANSPORTS = List.of(new BurpTransport(),
+			new PooledHttpTransport(KEEP_ALIVE, HttpClient.Version.HTTP_1_1),
+			new PooledHttpTransport(HTTP2, HttpClient.Version.HTTP_2));
+
+	public static List<PollTransport> all() {
+		return TRANSPORTS;
+	}
+
+	public static String[] names() {
+		return TRANSPORTS.stream().map(PollTransport::getName).toArray(String[]::new);
+	}
+
+	public static PollTransport forName(String name) {
+		for (PollTransport transport : TRANSPORTS) {
+			if (transport.getName().equals(name)) {
+				return transport;
+			}
+		}
+		return TRANSPORTS.get(0);
+	}
+
+	// Every transport opens its connections again when it is next used
+	public static void closeAll() {
+		TRANSPORTS.forEach(PollTransport::close);
+	}
+}
@@ -0,0 +1,59 @@
+package interactsh.store;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class SearchIndexTest {
+
+	// A base64 blob longer than the indexed prefix of a word, with a token far past that prefix
+	private static String blob() {
+		String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+		Random random = new Random(42);
+		StringBuilder blob = new StringBuilder();
+		for (int i = 0; i < 300; i++) {
+			blob.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+		return blob.toString();
+	}
+
+	private static boolean mayMatch(SearchIndex.Candidates candidates, int row) {
+		return candidates.rows().get(row) && (candidates.needsVerification()
+				|| candidates.cutRows().get(row));
+	}
+
+	@Test
+	void findsTokenPastTheIndexedPrefixOfALongWord() {
+		String blob = blob();
+		SearchIndex index = new SearchIndex();
+		index.add(0, SearchIndex.tokenize("GET /?d=" + blob + " HTTP/1.1", ""));
+		index.add(1, SearchIndex.tokenize("GET /?d=short HTTP/1.1", ""));
+
+		SearchIndex.Candidates candidates = index.candidates(blob.substring(200, 216));
+		assertTrue(mayMatch(candidates, 0));
+		assertFalse(candidates.rows().get(1));
+	}
+
+	@Test
+	void findsQueryStartingPastTheIndexedPrefixOfALongWord() {
+		String blob = blob();
+		SearchIndex index = new SearchIndex();
+		index.add(0, SearchIndex.tokenize("GET /?d=" + blob + " HTTP/1.1", ""));
+
+		assertTrue(mayMatch(index.candidates(blob.substring(280) + " HTTP"), 0));
+	}
+
+	@Test
+	void wordsWithinTheLimitNeedNoVerification() {
+		SearchIndex index = new SearchIndex();
+		String token = "c58bduhe008dovpvhvugcfemp9yyyyyyn";
+		index.add(0, SearchIndex.tokenize("GET /?d=" + token + " HTTP/1.1", ""));
+
+		SearchIndex.Candidates candidates = index.candidates(token);
+		assertTrue(candidates.rows().get(0));
+		assertFalse(candidates.needsVerification());
+		assertTrue(candidates.cutRows().isEmpty());
+	}
+}